@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.benchmarks;
+
+import io.github.rkamradt.possibly.Possibly;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Shared benchmark inputs. A fixed size ring of good and bad values is built
+ * from the failure ratio so that success, failure and mixed workloads run the
+ * same code with a different mix of inputs.
+ * @author randal kamradt
+ */
+@State(Scope.Thread)
+public class Inputs {
+    public static final String GOOD_VALUE = "good";
+    public static final String BAD_VALUE = "bad";
+    /**
+     * A preallocated exception so that the benchmarks measure the cost of
+     * the wrapping and not the cost of filling in a stack trace
+     */
+    public static final Exception FAILURE = new Exception("bad value");
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+    /**
+     * The fraction of the inputs that will fail, 0.0 is all success and 1.0
+     * is all failure
+     */
+    @Param({"0.0", "0.1", "0.5", "1.0"})
+    public double failureRatio;
+    public String[] values;
+    public Possibly<String>[] possiblies;
+    private int index;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Random random = new Random(42);
+        values = new String[SIZE];
+        possiblies = new Possibly[SIZE];
+        for(int i = 0; i < SIZE; i++) {
+            boolean bad = random.nextDouble() < failureRatio;
+            values[i] = bad ? BAD_VALUE : GOOD_VALUE;
+            possiblies[i] = bad ? Possibly.of(FAILURE) : Possibly.of(GOOD_VALUE);
+        }
+    }
+    /**
+     * get the next raw value in the ring
+     * @return a good or bad value
+     */
+    public String nextValue() {
+        return values[index++ & MASK];
+    }
+    /**
+     * get the next Possibly in the ring
+     * @return a Possibly with a value or an exception
+     */
+    public Possibly<String> nextPossibly() {
+        return possiblies[index++ & MASK];
+    }
+    /**
+     * A method that throws a checked exception on a bad value
+     * @param value the value to check
+     * @return the length of the value
+     * @throws Exception if the value is bad
+     */
+    public static Integer lengthWithException(String value) throws Exception {
+        if(BAD_VALUE == value) {
+            throw FAILURE;
+        }
+        return value.length();
+    }
+}
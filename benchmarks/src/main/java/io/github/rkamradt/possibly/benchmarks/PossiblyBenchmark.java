@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.benchmarks;
+
+import io.github.rkamradt.possibly.Possibly;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the Possibly operators on success, failure and mixed inputs. The
+ * baselines do the same work with null checks on a raw value and exception
+ * so the difference is the cost of the Possibly type itself.
+ * @author randal kamradt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PossiblyBenchmark {
+
+    @Benchmark
+    public Possibly<Integer> map(Inputs inputs) {
+        return inputs.nextPossibly().map(String::length);
+    }
+
+    @Benchmark
+    public Possibly<Integer> flatMap(Inputs inputs) {
+        return inputs.nextPossibly().flatMap(s -> Optional.of(s.length()));
+    }
+
+    @Benchmark
+    public Possibly<String> filter(Inputs inputs) {
+        return inputs.nextPossibly().filter(s -> s.length() > 1);
+    }
+
+    @Benchmark
+    public long stream(Inputs inputs) {
+        return inputs.nextPossibly().stream().count();
+    }
+
+    @Benchmark
+    public Possibly<Integer> chain(Inputs inputs) {
+        return inputs.nextPossibly()
+                .filter(s -> s.length() > 1)
+                .map(String::length)
+                .map(i -> i * 2);
+    }
+
+    @Benchmark
+    public Object chainBaseline(Inputs inputs) {
+        String value = inputs.nextValue();
+        if(value == Inputs.BAD_VALUE) {
+            return Inputs.FAILURE;
+        }
+        if(value.length() <= 1) {
+            return null;
+        }
+        return value.length() * 2;
+    }
+}
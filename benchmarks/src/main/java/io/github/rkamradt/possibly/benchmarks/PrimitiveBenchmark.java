@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.benchmarks;
+
+import io.github.rkamradt.possibly.Possibly;
+import io.github.rkamradt.possibly.PossiblyInt;
+import io.github.rkamradt.possibly.PossiblyIntSupplier;
+import io.github.rkamradt.possibly.PossiblySupplier;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the boxed PossiblySupplier against the primitive PossiblyIntSupplier
+ * when supplying int values that are not in the Integer cache.
+ * @author randal kamradt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveBenchmark {
+    private String next;
+    private final PossiblySupplier<Integer> boxed =
+            PossiblySupplier.of(() -> 1000 + Inputs.lengthWithException(next));
+    private final PossiblyIntSupplier primitive =
+            PossiblyIntSupplier.of(() -> 1000 + Inputs.lengthWithException(next));
+
+    @Benchmark
+    public int boxedGet(Inputs inputs) {
+        next = inputs.nextValue();
+        Possibly<Integer> p = boxed.get();
+        return p.is() ? p.getValue().get() : -1;
+    }
+
+    @Benchmark
+    public int primitiveGet(Inputs inputs) {
+        next = inputs.nextValue();
+        PossiblyInt p = primitive.get();
+        return p.orElse(-1);
+    }
+}
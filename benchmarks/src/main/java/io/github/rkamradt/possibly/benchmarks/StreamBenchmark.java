@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.benchmarks;
+
+import io.github.rkamradt.possibly.PossiblyCollectors;
+import io.github.rkamradt.possibly.PossiblyFunction;
+import io.github.rkamradt.possibly.PossiblyStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure a three stage pipeline over the whole ring of inputs written with
+ * a Possibly at every stage against the same pipeline on a PossiblyStream.
+ * @author randal kamradt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamBenchmark {
+
+    @Benchmark
+    public PossiblyCollectors.Counts perStage(Inputs inputs) {
+        return Arrays.stream(inputs.values)
+                .map(PossiblyFunction.of(Inputs::lengthWithException))
+                .map(p -> p.map(i -> i * 2))
+                .map(p -> p.filter(i -> i > 1))
+                .collect(PossiblyCollectors.counting());
+    }
+
+    @Benchmark
+    public PossiblyCollectors.Counts fused(Inputs inputs) {
+        return PossiblyStream.of(Arrays.stream(inputs.values))
+                .mapChecked(Inputs::lengthWithException)
+                .map(i -> i * 2)
+                .filter(i -> i > 1)
+                .collect(PossiblyCollectors.counting());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.benchmarks;
+
+import io.github.rkamradt.possibly.Possibly;
+import io.github.rkamradt.possibly.PossiblyConsumer;
+import io.github.rkamradt.possibly.PossiblyFunction;
+import io.github.rkamradt.possibly.PossiblyPredicate;
+import io.github.rkamradt.possibly.PossiblySupplier;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure the four wrapper types against a hand written try/catch doing the
+ * same work. Each wrapper benchmark has a matching baseline benchmark so the
+ * difference between the two is the cost of the wrapping.
+ * @author randal kamradt
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WrapperBenchmark {
+    private final PossiblyFunction<String, Integer> function =
+            PossiblyFunction.of(Inputs::lengthWithException);
+    private String next;
+    private final PossiblySupplier<Integer> supplier =
+            PossiblySupplier.of(() -> Inputs.lengthWithException(next));
+    private int accepted;
+    private Exception last;
+    private final PossiblyConsumer<String> consumer =
+            PossiblyConsumer.of(v -> accepted += Inputs.lengthWithException(v),
+                    e -> last = e);
+    private final PossiblyPredicate<String> predicate =
+            PossiblyPredicate.of(v -> Inputs.lengthWithException(v) > 0,
+                    e -> last = e);
+
+    @Benchmark
+    public Possibly<Integer> functionApply(Inputs inputs) {
+        return function.apply(inputs.nextValue());
+    }
+
+    @Benchmark
+    public Object functionBaseline(Inputs inputs) {
+        try {
+            return Inputs.lengthWithException(inputs.nextValue());
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Possibly<Integer> supplierGet(Inputs inputs) {
+        next = inputs.nextValue();
+        return supplier.get();
+    }
+
+    @Benchmark
+    public Object supplierBaseline(Inputs inputs) {
+        next = inputs.nextValue();
+        try {
+            return Inputs.lengthWithException(next);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public int consumerAccept(Inputs inputs) {
+        consumer.accept(inputs.nextValue());
+        return accepted;
+    }
+
+    @Benchmark
+    public int consumerBaseline(Inputs inputs) {
+        try {
+            accepted += Inputs.lengthWithException(inputs.nextValue());
+        } catch (Exception e) {
+            last = e;
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public boolean predicateTest(Inputs inputs) {
+        return predicate.test(inputs.nextValue());
+    }
+
+    @Benchmark
+    public boolean predicateBaseline(Inputs inputs) {
+        try {
+            return Inputs.lengthWithException(inputs.nextValue()) > 0;
+        } catch (Exception e) {
+            last = e;
+            return false;
+        }
+    }
+}
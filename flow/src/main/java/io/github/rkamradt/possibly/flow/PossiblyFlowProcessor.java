@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.flow;
+
+import io.github.rkamradt.possibly.Possibly;
+import io.github.rkamradt.possibly.PossiblyFunction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * <p>A Flow.Processor that maps each element with an ExceptionFunction. The
+ * values are sent downstream and the exceptions go to a handler, so a
+ * failing element does not cancel the subscription the way an exception
+ * thrown in a map stage would. An element that maps to null goes to the
+ * handler as an IllegalArgumentException, the same as with PossiblyFunction.
+ *
+ * <pre>PossiblyFlowProcessor&lt;String, Order&gt; parser = PossiblyFlowProcessor.of(
+ *         s -&gt; Order.parse(s), 64, e -&gt; log.warn("bad order", e));
+ * publisher.subscribe(parser);
+ * parser.subscribe(orderSubscriber);</pre>
+ *
+ * <p>The handler can be the submit method of a SubmissionPublisher to make
+ * the failures a Flow.Publisher of their own.
+ *
+ * <p>Elements are requested from upstream in batches. The processor asks
+ * for the prefetch count when it is subscribed, and asks for more each time
+ * three quarters of that have been taken, so upstream sees one request per
+ * batch rather than one per element. The elements wait in a queue until
+ * there is demand from downstream, and the queue never holds more than the
+ * prefetch count. Only values count against the downstream demand. The
+ * processor has a single subscriber, a second one is sent an error.
+ *
+ * <p>This class uses java.util.concurrent.Flow, so unlike the rest of the
+ * library it needs Java 9 or later. It is in the separate possibly-flow
+ * artifact so that the main library stays compatible with Java 8.
+ *
+ * @author randal kamradt
+ * @param <V> the type of the elements from upstream
+ * @param <R> the type of the values sent downstream
+ * @since 1.0.2
+ */
+public final class PossiblyFlowProcessor<V, R> implements Flow.Processor<V, R> {
+    private final PossiblyFunction<V, R> f;
+    private final int prefetch;
+    private final int limit;
+    private final Consumer<Exception> failures;
+    private final Queue<V> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicReference<Flow.Subscriber<? super R>> downstream = new AtomicReference<>();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+    private int consumed;
+
+    private PossiblyFlowProcessor(PossiblyFunction.ExceptionFunction<V, R> f, int prefetch,
+            Consumer<Exception> failures) {
+        this.f = PossiblyFunction.of(f);
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.failures = failures;
+    }
+    /**
+     * used to publicly create a PossiblyFlowProcessor
+     * @param <V> The type of the elements from upstream
+     * @param <R> The type of the values sent downstream
+     * @param f The function to map the elements
+     * @param prefetch the number of elements to request from upstream at a
+     * time
+     * @param failures the handler for the exceptions
+     * @return A new PossiblyFlowProcessor
+     */
+    static public <V, R> PossiblyFlowProcessor<V, R> of(final PossiblyFunction.ExceptionFunction<V, R> f,
+            final int prefetch, final Consumer<Exception> failures) {
+        if(prefetch < 1)
+            throw new IllegalArgumentException("prefetch must be at least 1");
+        return new PossiblyFlowProcessor<>(f, prefetch, failures);
+    }
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if(!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("PossiblyFlowProcessor allows only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if(n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("request must be positive"));
+                    return;
+                }
+                addRequested(n);
+                drain();
+            }
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Flow.Subscription s = upstream;
+                if(s != null) {
+                    s.cancel();
+                }
+            }
+        });
+        drain();
+    }
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if(upstream != null || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(prefetch);
+    }
+    @Override
+    public void onNext(V item) {
+        queue.offer(item);
+        drain();
+    }
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+    private void addRequested(long n) {
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            if(current == Long.MAX_VALUE) {
+                return;
+            }
+            next = current + n;
+            if(next < 0) {
+                next = Long.MAX_VALUE;
+            }
+        } while(!requested.compareAndSet(current, next));
+    }
+    /**
+     * Send as many values downstream as there is demand for. Only one thread
+     * drains at a time, a call while another thread is draining makes that
+     * thread go around again
+     */
+    private void drain() {
+        if(wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super R> subscriber = downstream.get();
+            if(subscriber != null && drain(subscriber)) {
+                return;
+            }
+            missed = wip.addAndGet(-missed);
+        } while(missed != 0);
+    }
+    /**
+     * one pass of the drain loop
+     * @param subscriber the downstream subscriber
+     * @return true if the stream has terminated
+     */
+    private boolean drain(Flow.Subscriber<? super R> subscriber) {
+        long demand = requested.get();
+        long emitted = 0;
+        while(emitted != demand) {
+            if(cancelled) {
+                queue.clear();
+                return true;
+            }
+            boolean finished = done;
+            V item = queue.poll();
+            if(item == null) {
+                if(finished) {
+                    terminate(subscriber);
+                    return true;
+                }
+                break;
+            }
+            if(++consumed == limit) {
+                consumed = 0;
+                upstream.request(limit);
+            }
+            Possibly<R> p = f.apply(item);
+            if(p.is()) {
+                subscriber.onNext(p.getValue().get());
+                emitted++;
+            } else {
+                p.doOnException(failures);
+            }
+        }
+        if(cancelled) {
+            queue.clear();
+            return true;
+        }
+        if(done && queue.isEmpty()) {
+            terminate(subscriber);
+            return true;
+        }
+        if(emitted != 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+        }
+        return false;
+    }
+    private void terminate(Flow.Subscriber<? super R> subscriber) {
+        cancelled = true;
+        Throwable t = error;
+        if(t != null) {
+            subscriber.onError(t);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+}
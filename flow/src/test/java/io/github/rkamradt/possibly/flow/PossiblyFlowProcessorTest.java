@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyFlowProcessorTest {
+    public PossiblyFlowProcessorTest() {
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        System.out.println("process");
+        List<Exception> failures = new ArrayList<>();
+        PossiblyFlowProcessor<String, Integer> processor = PossiblyFlowProcessor.of(
+                s -> parse(s), 16, failures::add);
+        RangePublisher publisher = new RangePublisher(100);
+        publisher.subscribe(processor);
+        CollectingSubscriber subscriber = new CollectingSubscriber(7);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.done.await(1, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(90, subscriber.values.size());
+        assertEquals(1, subscriber.values.get(0));
+        assertEquals(99, subscriber.values.get(89));
+        assertEquals(10, failures.size());
+        // one request for the prefetch and then one for every 12 elements
+        assertTrue(publisher.requests.get() <= 10, "requests " + publisher.requests.get());
+    }
+
+    @Test
+    public void testNullResult() throws Exception {
+        System.out.println("nullResult");
+        List<Exception> failures = new ArrayList<>();
+        PossiblyFlowProcessor<String, Integer> processor = PossiblyFlowProcessor.of(
+                s -> s.equals("5") ? null : Integer.valueOf(s), 16, failures::add);
+        RangePublisher publisher = new RangePublisher(10);
+        publisher.subscribe(processor);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.done.await(1, TimeUnit.SECONDS));
+        assertEquals(9, subscriber.values.size());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testBackpressure() {
+        System.out.println("backpressure");
+        PossiblyFlowProcessor<String, Integer> processor = PossiblyFlowProcessor.of(
+                s -> parse(s), 4, e -> {});
+        RangePublisher publisher = new RangePublisher(1000);
+        publisher.subscribe(processor);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        processor.subscribe(subscriber);
+        assertTrue(subscriber.values.isEmpty());
+        assertEquals(4, publisher.emitted);
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.values.size());
+        assertTrue(publisher.emitted <= 8);
+        subscriber.subscription.cancel();
+        assertTrue(publisher.cancelled);
+    }
+
+    @Test
+    public void testSubmissionPublisher() throws Exception {
+        System.out.println("submissionPublisher");
+        List<Exception> failures = new ArrayList<>();
+        PossiblyFlowProcessor<String, Integer> processor;
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        try(SubmissionPublisher<String> publisher = new SubmissionPublisher<>()) {
+            processor = PossiblyFlowProcessor.of(s -> parse(s), 8, e -> {
+                synchronized(failures) {
+                    failures.add(e);
+                }
+            });
+            publisher.subscribe(processor);
+            processor.subscribe(subscriber);
+            for(int i = 0; i < 1000; i++) {
+                publisher.submit(Integer.toString(i));
+            }
+        }
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(900, subscriber.values.size());
+        assertEquals(100, failures.size());
+        CollectingSubscriber second = new CollectingSubscriber(1);
+        processor.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    public Integer parse(String s) throws Exception {
+        int value = Integer.parseInt(s);
+        if(value % 10 == 0) {
+            throw new Exception("tens");
+        }
+        return value;
+    }
+
+    /**
+     * A synchronous publisher of the numbers from 0 that counts the requests
+     */
+    public static class RangePublisher implements Flow.Publisher<String> {
+        public final AtomicInteger requests = new AtomicInteger();
+        public final int count;
+        public int emitted;
+        public boolean cancelled;
+        private long requested;
+        private boolean emitting;
+
+        public RangePublisher(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requests.incrementAndGet();
+                    requested += n;
+                    if(emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while(requested > 0 && emitted < count && !cancelled) {
+                        requested--;
+                        subscriber.onNext(Integer.toString(emitted++));
+                    }
+                    if(emitted == count && !cancelled) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                    emitting = false;
+                }
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * A subscriber that collects the values
+     */
+    public static class CollectingSubscriber implements Flow.Subscriber<Integer> {
+        public final List<Integer> values = new ArrayList<>();
+        public final CountDownLatch done = new CountDownLatch(1);
+        public final long batch;
+        public Flow.Subscription subscription;
+        public Throwable error;
+        private long outstanding;
+
+        public CollectingSubscriber(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if(batch > 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+        @Override
+        public void onNext(Integer item) {
+            values.add(item);
+            if(batch > 0 && batch != Long.MAX_VALUE && --outstanding == 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
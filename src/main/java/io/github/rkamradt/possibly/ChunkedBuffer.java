@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The chunk and failure bookkeeping shared by the columnar buffers. The
+ * elements are kept in arrays that grow in chunks, so a large buffer is never
+ * copied as it grows, and the elements that hold no value are kept in a
+ * FailureTable. Subclasses give the type of the chunk arrays and read the
+ * values out of them. It is not thread safe.
+ * @author randal kamradt
+ * @param <A> the type of the chunk arrays, such as Object[] or long[]
+ * @since 1.0.2
+ */
+abstract class ChunkedBuffer<A> {
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * The size of the first chunk of a new buffer, it doubles up to
+     * CHUNK_SIZE so that the small buffers of a parallel collect stay small
+     */
+    static final int INITIAL_SIZE = 16;
+    final FailureTable failures = new FailureTable();
+    int size;
+    private Object[] chunks = new Object[4];
+
+    /**
+     * Create a chunk array
+     * @param length the length of the chunk
+     * @return the new chunk
+     */
+    abstract A newChunk(int length);
+    /**
+     * Copy a chunk array into a longer one
+     * @param chunk the chunk to copy
+     * @param length the new length
+     * @return the new chunk
+     */
+    abstract A grow(A chunk, int length);
+    /**
+     * The length of a chunk array
+     * @param chunk the chunk
+     * @return its length
+     */
+    abstract int length(A chunk);
+    /**
+     * The number of elements in the buffer
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Stream the exceptions in order
+     * @return a stream of the exceptions
+     */
+    public Stream<Exception> failures() {
+        return IntStream.range(0, failures.count())
+                .mapToObj(failures::exceptionAt)
+                .filter(Objects::nonNull);
+    }
+    /**
+     * The chunk that holds an index that has been added
+     */
+    @SuppressWarnings("unchecked")
+    final A chunk(int index) {
+        return (A)chunks[index >>> CHUNK_SHIFT];
+    }
+    /**
+     * Append an element with no value
+     * @param e the exception, or null for an empty element
+     */
+    final void addFailure(Exception e) {
+        failures.mark(size, e);
+        slot(size);
+        size++;
+    }
+    /**
+     * Append all of the elements of another buffer after the elements of
+     * this one
+     * @param other the buffer to append
+     */
+    final void append(ChunkedBuffer<A> other) {
+        int offset = size;
+        int copied = 0;
+        while(copied < other.size) {
+            A chunk = slot(size);
+            int n = Math.min(length(chunk) - (size & CHUNK_MASK),
+                    Math.min(CHUNK_SIZE - (copied & CHUNK_MASK), other.size - copied));
+            System.arraycopy(other.chunk(copied), copied & CHUNK_MASK,
+                    chunk, size & CHUNK_MASK, n);
+            size += n;
+            copied += n;
+        }
+        failures.append(other.failures, offset);
+    }
+    /**
+     * Check that an index has been added
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    final void checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index " + index + " of "
+                    + getClass().getSimpleName() + " of size " + size);
+    }
+    /**
+     * The chunk that holds an index, growing the buffer if needed. Indexes
+     * are only ever added at the end
+     */
+    @SuppressWarnings("unchecked")
+    final A slot(int index) {
+        int c = index >>> CHUNK_SHIFT;
+        if(c == chunks.length) {
+            chunks = Arrays.copyOf(chunks, c * 2);
+        }
+        A chunk = (A)chunks[c];
+        if(chunk == null) {
+            chunk = newChunk(c == 0 ? INITIAL_SIZE : CHUNK_SIZE);
+            chunks[c] = chunk;
+        } else if((index & CHUNK_MASK) == length(chunk)) {
+            chunk = grow(chunk, Math.min(CHUNK_SIZE, length(chunk) * 2));
+            chunks[c] = chunk;
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+
+/**
+ * The failures of a columnar buffer. A bitmap marks every index that holds
+ * no value, and a sparse side table sorted by index holds the exception for
+ * each marked index, or null for an empty one. Nothing is allocated until
+ * the first index is marked, so a buffer with no failures pays nothing.
+ * Indexes must be marked in increasing order. It is not thread safe.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+final class FailureTable {
+    private static final long[] NO_BITS = new long[0];
+    private static final int[] NO_INDEXES = new int[0];
+    private static final Exception[] NO_EXCEPTIONS = new Exception[0];
+    private long[] bits = NO_BITS;
+    private int[] indexes = NO_INDEXES;
+    private Exception[] exceptions = NO_EXCEPTIONS;
+    private int count;
+
+    /**
+     * Mark an index as holding no value
+     * @param index the index, greater than any marked before
+     * @param exception the exception or null for an empty index
+     */
+    void mark(int index, Exception exception) {
+        int word = index >>> 6;
+        if(word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        bits[word] |= 1L << index;
+        if(count == indexes.length) {
+            int capacity = Math.max(8, count * 2);
+            indexes = Arrays.copyOf(indexes, capacity);
+            exceptions = Arrays.copyOf(exceptions, capacity);
+        }
+        indexes[count] = index;
+        exceptions[count] = exception;
+        count++;
+    }
+    /**
+     * Check if an index holds no value
+     * @param index the index
+     * @return true if the index was marked
+     */
+    boolean isMarked(int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+    /**
+     * The exception at a marked index
+     * @param index the index
+     * @return the exception or null if the index is empty or not marked
+     */
+    Exception exception(int index) {
+        int i = Arrays.binarySearch(indexes, 0, count, index);
+        return i < 0 ? null : exceptions[i];
+    }
+    /**
+     * Mark every index of another table shifted by an offset
+     * @param other the table to append
+     * @param offset the offset to add to its indexes, greater than any
+     * index marked in this table
+     */
+    void append(FailureTable other, int offset) {
+        for(int i = 0; i < other.count; i++) {
+            mark(other.indexes[i] + offset, other.exceptions[i]);
+        }
+    }
+    /**
+     * The number of marked indexes
+     * @return the count
+     */
+    int count() {
+        return count;
+    }
+    /**
+     * The exception at a position in the side table
+     * @param i the position, less than count
+     * @return the exception or null for an empty index
+     */
+    Exception exceptionAt(int i) {
+        return exceptions[i];
+    }
+}
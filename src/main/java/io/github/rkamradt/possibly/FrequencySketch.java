@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+/**
+ * A count-min sketch of small counters used to estimate how often a hash has
+ * been seen recently. Each counter saturates at 15, and all of the counters
+ * are halved once the sample size is reached so that old popularity fades.
+ * It is not thread safe, callers guard it with their own lock.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {
+        0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F
+    };
+    private final byte[] table;
+    private final int shift;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Create a sketch sized for the number of distinct items expected
+     * @param capacity the number of items to track
+     */
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        table = new byte[DEPTH * width];
+        shift = 32 - Integer.numberOfTrailingZeros(width);
+        sampleSize = 10 * width;
+    }
+    /**
+     * Count one more occurrence of the hash
+     * @param hash the hash of the item
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for(int i = 0; i < DEPTH; i++) {
+            int index = index(hash, i);
+            if(table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if(added && ++additions >= sampleSize) {
+            for(int i = 0; i < table.length; i++) {
+                table[i] >>= 1;
+            }
+            additions >>= 1;
+        }
+    }
+    /**
+     * Estimate how often the hash has been seen
+     * @param hash the hash of the item
+     * @return the estimated count, at most 15
+     */
+    int frequency(int hash) {
+        int min = MAX_COUNT;
+        for(int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, table[index(hash, i)]);
+        }
+        return min;
+    }
+    private int index(int hash, int row) {
+        int width = table.length / DEPTH;
+        return row * width + ((hash * SEEDS[row]) >>> shift);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A timer for large numbers of short lived deadlines, such as timeouts
+ * that are almost always cancelled before they fire. Scheduling and
+ * cancelling are each an append to a lock-free queue, and a
+ * single daemon thread moves the new deadlines into a wheel of buckets and
+ * fires the ones that are due, so a pending deadline costs one small object
+ * and no thread or ScheduledFuture.
+ *
+ * <p>The wheel ticks every ten milliseconds, so a deadline fires up to one
+ * tick late. The tasks run on the timer thread and must be short, such as
+ * completing a future or interrupting a thread. The thread parks when there
+ * is nothing scheduled.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+final class HashedWheelTimer {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final Thread worker;
+    private volatile boolean parked;
+    private long start;
+    private long tick;
+    private int scheduled;
+
+    private HashedWheelTimer(String name) {
+        for(int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+    /**
+     * the timer shared by all of the Possibly wrappers, started on first use
+     * @return the shared timer
+     */
+    static HashedWheelTimer shared() {
+        return Holder.SHARED;
+    }
+    /**
+     * Schedule a timeout to fire after a delay
+     * @param timeout the timeout, which must not have been scheduled before
+     * @param delayNanos the delay in nanoseconds
+     */
+    void schedule(Timeout timeout, long delayNanos) {
+        timeout.timer = this;
+        timeout.deadline = System.nanoTime() + Math.max(0, delayNanos);
+        pending.add(timeout);
+        if(parked) {
+            LockSupport.unpark(worker);
+        }
+    }
+    private void run() {
+        start = System.nanoTime();
+        while(true) {
+            if(scheduled == 0 && pending.isEmpty()) {
+                parked = true;
+                if(pending.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                tick = (System.nanoTime() - start) / TICK_NANOS;
+                continue;
+            }
+            waitForNextTick();
+            removeCancelled();
+            transferPending();
+            expire(wheel[(int)(tick & MASK)]);
+            tick++;
+        }
+    }
+    private void waitForNextTick() {
+        long deadline = start + (tick + 1) * TICK_NANOS;
+        long sleep;
+        while((sleep = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, sleep);
+        }
+    }
+    private void removeCancelled() {
+        Timeout timeout;
+        while((timeout = cancelled.poll()) != null) {
+            if(timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+                scheduled--;
+            }
+        }
+    }
+    private void transferPending() {
+        Timeout timeout;
+        while((timeout = pending.poll()) != null) {
+            if(timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            long ticks = Math.max(0, (timeout.deadline - start + TICK_NANOS - 1) / TICK_NANOS);
+            timeout.rounds = (ticks - tick) / WHEEL_SIZE;
+            wheel[(int)(Math.max(ticks, tick) & MASK)].add(timeout);
+            scheduled++;
+        }
+    }
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while(timeout != null) {
+            Timeout next = timeout.next;
+            // cancelled timeouts are removed when the cancelled queue is drained
+            if(timeout.state == Timeout.PENDING) {
+                if(timeout.rounds <= 0) {
+                    bucket.remove(timeout);
+                    scheduled--;
+                    timeout.expire();
+                } else {
+                    timeout.rounds--;
+                }
+            }
+            timeout = next;
+        }
+    }
+    /**
+     * A deadline that can be cancelled. Subclasses give the action to take
+     * when it fires
+     */
+    static abstract class Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        private volatile int state;
+        private HashedWheelTimer timer;
+        private Bucket bucket;
+        private long deadline;
+        private long rounds;
+        private Timeout next;
+        private Timeout prev;
+
+        /**
+         * Cancel the timeout so it never fires
+         * @return true if it was cancelled, false if it has already fired
+         */
+        boolean cancel() {
+            if(STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                timer.cancelled.add(this);
+                return true;
+            }
+            return false;
+        }
+        private void expire() {
+            if(STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                try {
+                    run();
+                } catch (Throwable t) {
+                    // a failing task must not stop the timer, the thread is
+                    // shared by every timeout in the process
+                }
+            }
+        }
+        /**
+         * the action to take when the timeout fires, run on the timer thread
+         */
+        abstract void run();
+    }
+    /**
+     * A doubly linked list of timeouts, only touched by the timer thread
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if(tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+        private void remove(Timeout timeout) {
+            if(timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if(timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+    private static final class Holder {
+        private static final HashedWheelTimer SHARED = new HashedWheelTimer("possibly-timer");
+    }
+}
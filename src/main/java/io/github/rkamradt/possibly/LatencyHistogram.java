@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds. The buckets are on a log
+ * scale with four buckets for each power of two, so a recorded value is off by
+ * at most a quarter, and recording is a single atomic increment. The counts
+ * are striped like a LongAdder, each thread hashes to a stripe of its own
+ * that is created on its first use, so threads rarely contend for the hot
+ * buckets. Reads add up the stripes.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /**
+     * Record a latency
+     * @param nanos the latency in nanoseconds, negative values count as 0
+     */
+    void record(long nanos) {
+        long id = Thread.currentThread().getId();
+        int i = (int)(id ^ (id >>> 16)) & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(i);
+        if(stripe == null) {
+            stripes.compareAndSet(i, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(i);
+        }
+        stripe.incrementAndGet(index(Math.max(0, nanos)));
+    }
+    /**
+     * Estimate a percentile of the recorded latencies
+     * @param percentile the percentile between 0 and 1
+     * @return the upper bound of the bucket the percentile falls in, or 0 if
+     * nothing has been recorded
+     */
+    long percentile(double percentile) {
+        return percentile(snapshot(), percentile);
+    }
+    /**
+     * the number of latencies recorded
+     * @return the count
+     */
+    long count() {
+        long count = 0;
+        for(int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if(stripe != null) {
+                for(int i = 0; i < BUCKETS; i++) {
+                    count += stripe.get(i);
+                }
+            }
+        }
+        return count;
+    }
+    /**
+     * copy the bucket counts
+     * @return the count in each bucket
+     */
+    long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for(int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if(stripe != null) {
+                for(int i = 0; i < BUCKETS; i++) {
+                    snapshot[i] += stripe.get(i);
+                }
+            }
+        }
+        return snapshot;
+    }
+    /**
+     * Estimate a percentile from a copy of the bucket counts
+     * @param snapshot the bucket counts
+     * @param percentile the percentile between 0 and 1
+     * @return the upper bound of the bucket the percentile falls in, or 0 if
+     * there are no counts
+     */
+    static long percentile(long[] snapshot, double percentile) {
+        long total = 0;
+        for(long count : snapshot) {
+            total += count;
+        }
+        if(total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long)Math.ceil(percentile * total));
+        long seen = 0;
+        for(int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if(seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(snapshot.length - 1);
+    }
+    /**
+     * the bucket a value goes in
+     * @param value a value that is not negative
+     * @return the bucket index
+     */
+    static int index(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+    /**
+     * the largest value that goes in a bucket
+     * @param index the bucket index
+     * @return the largest value in the bucket
+     */
+    static long upperBound(int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -23,10 +23,17 @@
  */
 package io.github.rkamradt.possibly;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
 /**
@@ -58,56 +65,25 @@ import java.util.stream.Stream;
  * 
  * <p>Note that the type of the Possibly cannot be an exception.
  * 
+ * <p>Internally there is a separate form for a value, an exception and the
+ * empty Possibly. The exceptional and empty forms return themselves from
+ * map, flatMap and filter so a failed element costs nothing further down
+ * a chain.
+ * 
  * 
  * @author randal kamradt
  * @param <T> The type of this Possibly. The exception is always of type Exception
  * @since 1.0.0
  */
-public class Possibly<T> {
+public abstract class Possibly<T> {
     /** 
      * Singleton instance of an empty Possibly
      */
-    private static final Possibly<?> EMPTY = new Possibly<>(null, null);
-    /**
-     * The value. can be null internally, but always presented as an Optional
-     */
-    final T value;
+    private static final Possibly<?> EMPTY = new Empty<>();
     /**
-     * The exception. can be null internally, but always presented as an 
-     * Optional
+     * Only the nested value, exception and empty forms can extend Possibly
      */
-    final Exception exception;
-    /**
-     * create a Possibly with a value. In this case the value is checked for
-     * null and, if so, will throw an exception 
-     * @param value the type of the value represented. 
-     */
-    private Possibly(T value) {
-        if(value == null) 
-            throw new IllegalArgumentException("value of Possibly cannot be null");
-        this.value = value;
-        this.exception = null;
-    }
-    /**
-     * create a Possibly with an exception. An exceptional Possibly can never have
-     * a value
-     * @param exception 
-     */
-    private Possibly(Exception exception) {
-        if(exception == null) 
-            throw new IllegalArgumentException("exception of Possibly cannot be null");
-        this.value = null;
-        this.exception = exception;
-    }
-    /**
-     * create a Possibly with a value and an exception. This is used internally
-     * during mapping functions and to create an empty Possibly
-     * @param value
-     * @param exception 
-     */
-    private Possibly(T value, Exception exception) {
-        this.value = value;
-        this.exception = exception;
+    private Possibly() {
     }
     /**
      * Create a Possibly that represents type T. This object must contain a 
@@ -117,7 +93,9 @@ public class Possibly<T> {
      * @return a new Possibly of type T and value
      */
     public static <T> Possibly<T> of(T value ) {
-        return new Possibly(value);
+        if(value == null) 
+            throw new IllegalArgumentException("value of Possibly cannot be null");
+        return new Value<>(value);
     }
     /**
      * Create a Possibly that represents type T. This object may contain a 
@@ -128,7 +106,7 @@ public class Possibly<T> {
      * @return a new Possibly of type T and value
      */
     public static <T> Possibly<T> ofNullable(T value ) {
-        return new Possibly(value, null);
+        return value == null ? empty() : new Value<>(value);
     }
     /**
      * Create an exceptional Possibly of type T. this object will never have a
@@ -138,7 +116,9 @@ public class Possibly<T> {
      * @return a new exceptional Possibly of type T and exception
      */
     public static <T> Possibly<T> of(Exception exception ) {
-        return new Possibly(exception);
+        if(exception == null) 
+            throw new IllegalArgumentException("exception of Possibly cannot be null");
+        return new Failure<>(exception);
     }
     /**
      * Return an empty Possibly of type T. this object will never have a
@@ -146,33 +126,98 @@ public class Possibly<T> {
      * @param <T> The type of the Possibly to create 
      * @return an empty Possibly of type T and no exception
      */
+    @SuppressWarnings("unchecked")
     public static <T> Possibly<T> empty() {
         return (Possibly<T>)EMPTY;
     }
+    /**
+     * Apply an ExceptionFunction to every value in parallel on the common
+     * ForkJoinPool. See {@link #traverse(List, PossiblyFunction.ExceptionFunction, ForkJoinPool)}
+     * @param <V> The type of the values
+     * @param <R> The type of the results
+     * @param values the values to apply the function to
+     * @param f the function to apply
+     * @return a Possibly with all of the results in order or the first
+     * exception to happen
+     * @since 1.0.2
+     */
+    public static <V, R> Possibly<List<R>> traverse(List<V> values,
+            PossiblyFunction.ExceptionFunction<? super V, ? extends R> f) {
+        return traverse(values, f, ForkJoinPool.commonPool());
+    }
+    /**
+     * Apply an ExceptionFunction to every value in parallel on the given
+     * ForkJoinPool and succeed only if every call succeeds. As soon as one
+     * call throws, calls that have not started yet are skipped. Calls that
+     * are already running are not cancelled or interrupted, each one runs to
+     * the end and the traversal returns once they have all finished. A call
+     * that returns null fails with an IllegalArgumentException, the same as
+     * PossiblyFunction. When more than one call fails the result holds the
+     * first failure to happen, which is not necessarily the first in list
+     * order. Only a list of one value is applied on the caller's thread.
+     * @param <V> The type of the values
+     * @param <R> The type of the results
+     * @param values the values to apply the function to
+     * @param f the function to apply
+     * @param pool the pool to run the calls on
+     * @return a Possibly with an unmodifiable list of the results in order
+     * or the first exception to happen
+     * @since 1.0.2
+     */
+    public static <V, R> Possibly<List<R>> traverse(List<V> values,
+            PossiblyFunction.ExceptionFunction<? super V, ? extends R> f,
+            ForkJoinPool pool) {
+        if(values == null || f == null || pool == null)
+            throw new IllegalArgumentException("values, function and pool of traverse cannot be null");
+        return TraverseTask.traverse(values, f, pool);
+    }
+    /**
+     * Turn a list of Possibly into a Possibly of a list. The result holds
+     * every value in order, or the first exception in the list, or is empty
+     * if any element is empty and none is exceptional
+     * @param <T> The type of the values
+     * @param possiblies the list of Possibly to combine
+     * @return a Possibly with an unmodifiable list of the values, the first
+     * exception or empty
+     * @since 1.0.2
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Possibly<List<T>> sequence(List<Possibly<T>> possiblies) {
+        if(possiblies == null)
+            throw new IllegalArgumentException("possiblies of sequence cannot be null");
+        Object[] values = new Object[possiblies.size()];
+        boolean empty = false;
+        int i = 0;
+        for(Possibly<T> p : possiblies) {
+            if(p.exceptional()) {
+                return (Possibly<List<T>>)(Possibly<?>)p;
+            }
+            empty |= p.isEmpty();
+            values[i++] = p.valueOrNull();
+        }
+        if(empty) {
+            return empty();
+        }
+        return of(Collections.unmodifiableList((List<T>)Arrays.asList(values)));
+    }
     /**
      * Predicate function to return if there is a value. Note
      * that this will return false if the Possibly is empty <i>or</i>
      * if it an exceptional Possibly
      * @return true if the value is present otherwise false
      */
-    public boolean is() {
-        return value != null;
-    }
+    public abstract boolean is();
     /**
      * Predicate function to return if there is an exception
      * @return true if the value
      */
-    public boolean exceptional() {
-        return exception != null;
-    }
+    public abstract boolean exceptional();
     /**
      * Predicate function to check for an empty Possibly (one with no
      * value and no exception)
      * @return true if both value and exception are null
      */
-    public boolean isEmpty() {
-        return value == null && exception == null;
-    }
+    public abstract boolean isEmpty();
     /**
      * Perform some action if there is an exception. Can be used for logging
      * or other actions that produce side-effects
@@ -180,9 +225,6 @@ public class Possibly<T> {
      * @return this
      */
     public Possibly<T> doOnException(Consumer<Exception> action) {
-        if(exception != null) {
-            action.accept(exception);
-        }
         return this;
     }
     /**
@@ -190,14 +232,14 @@ public class Possibly<T> {
      * @return the value as Optional or Optional.empty
      */
     public Optional<T> getValue() {
-        return Optional.ofNullable(value);
+        return Optional.empty();
     }
     /**
      * get a possible exception as an Optional
      * @return the exception as an Optional or Optional.empty
      */
     public Optional<Exception> getException() {
-        return Optional.ofNullable(exception);
+        return Optional.empty();
     }
     /**
      * Map the value if there is one using the mapper function
@@ -205,32 +247,226 @@ public class Possibly<T> {
      * @param mapper a mapper function
      * @return a Possibly of type U
      */
-    public <U> Possibly<U> map(Function<T, U> mapper) {
-        return new Possibly(getValue().map(mapper).orElse(null), getException().orElse(null));
-    }
+    public abstract <U> Possibly<U> map(Function<T, U> mapper);
     /**
      * Flat Map the value if there is one using the mapper function
      * @param <U> The new type of the Possibly
      * @param mapper a mapper function that returns an Optional of type U
      * @return a Possibly of type U
      */
-    public <U> Possibly<U> flatMap(Function<T, ? extends Optional<? extends U>> mapper) {
-        return new Possibly(getValue().flatMap(mapper).orElse(null), getException().orElse(null));
-    }
+    public abstract <U> Possibly<U> flatMap(Function<T, ? extends Optional<? extends U>> mapper);
     /**
      * filter base on the predicate function.
      * @param predicate the predicate function
      * @return a new Possibly that is the same as the old possibly or an empty or exceptional Possibly
      */
-    public Possibly<T> filter(Predicate<T> predicate) {
-        return new Possibly(getValue().filter(predicate).orElse(null), 
-                getException().orElse(null));
+    public abstract Possibly<T> filter(Predicate<T> predicate);
+    /**
+     * Map the value if there is one to a int without boxing it
+     * @param mapper a mapper function
+     * @return a PossiblyInt with the mapped value or this exception
+     * @since 1.0.2
+     */
+    public PossiblyInt mapToInt(ToIntFunction<T> mapper) {
+        return PossiblyInt.empty();
+    }
+    /**
+     * Map the value if there is one to a long without boxing it
+     * @param mapper a mapper function
+     * @return a PossiblyLong with the mapped value or this exception
+     * @since 1.0.2
+     */
+    public PossiblyLong mapToLong(ToLongFunction<T> mapper) {
+        return PossiblyLong.empty();
+    }
+    /**
+     * Map the value if there is one to a double without boxing it
+     * @param mapper a mapper function
+     * @return a PossiblyDouble with the mapped value or this exception
+     * @since 1.0.2
+     */
+    public PossiblyDouble mapToDouble(ToDoubleFunction<T> mapper) {
+        return PossiblyDouble.empty();
     }
     /**
      * return the value as a Stream of zero or one item
      * @return a Stream of zero or one item
      */
     public Stream<T> stream() {
-        return is() ? Stream.of(value) : Stream.empty();
+        return Stream.empty();
+    }
+    /**
+     * The value without wrapping it in an Optional, used internally on hot
+     * paths
+     * @return the value or null if there is none
+     */
+    T valueOrNull() {
+        return null;
+    }
+    /**
+     * The exception without wrapping it in an Optional, used internally on
+     * hot paths
+     * @return the exception or null if there is none
+     */
+    Exception exceptionOrNull() {
+        return null;
+    }
+    /**
+     * A Possibly that holds a value. Mapping allocates only the result
+     * @param <T> the type of the value
+     */
+    private static final class Value<T> extends Possibly<T> {
+        /**
+         * The value, never null
+         */
+        private final T value;
+
+        private Value(T value) {
+            this.value = value;
+        }
+        @Override
+        public boolean is() {
+            return true;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public Optional<T> getValue() {
+            return Optional.of(value);
+        }
+        @Override
+        public <U> Possibly<U> map(Function<T, U> mapper) {
+            return ofNullable(mapper.apply(value));
+        }
+        @Override
+        public <U> Possibly<U> flatMap(Function<T, ? extends Optional<? extends U>> mapper) {
+            return ofNullable(mapper.apply(value).orElse(null));
+        }
+        @Override
+        public Possibly<T> filter(Predicate<T> predicate) {
+            return predicate.test(value) ? this : empty();
+        }
+        @Override
+        public PossiblyInt mapToInt(ToIntFunction<T> mapper) {
+            return PossiblyInt.of(mapper.applyAsInt(value));
+        }
+        @Override
+        public PossiblyLong mapToLong(ToLongFunction<T> mapper) {
+            return PossiblyLong.of(mapper.applyAsLong(value));
+        }
+        @Override
+        public PossiblyDouble mapToDouble(ToDoubleFunction<T> mapper) {
+            return PossiblyDouble.of(mapper.applyAsDouble(value));
+        }
+        @Override
+        public Stream<T> stream() {
+            return Stream.of(value);
+        }
+        @Override
+        T valueOrNull() {
+            return value;
+        }
+    }
+    /**
+     * A Possibly that holds an exception. Mapping and filtering return this
+     * @param <T> the type the Possibly would have had
+     */
+    private static final class Failure<T> extends Possibly<T> {
+        /**
+         * The exception, never null
+         */
+        private final Exception exception;
+
+        private Failure(Exception exception) {
+            this.exception = exception;
+        }
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return true;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public Possibly<T> doOnException(Consumer<Exception> action) {
+            action.accept(exception);
+            return this;
+        }
+        @Override
+        public Optional<Exception> getException() {
+            return Optional.of(exception);
+        }
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> Possibly<U> map(Function<T, U> mapper) {
+            return (Possibly<U>)this;
+        }
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> Possibly<U> flatMap(Function<T, ? extends Optional<? extends U>> mapper) {
+            return (Possibly<U>)this;
+        }
+        @Override
+        public Possibly<T> filter(Predicate<T> predicate) {
+            return this;
+        }
+        @Override
+        public PossiblyInt mapToInt(ToIntFunction<T> mapper) {
+            return PossiblyInt.of(exception);
+        }
+        @Override
+        public PossiblyLong mapToLong(ToLongFunction<T> mapper) {
+            return PossiblyLong.of(exception);
+        }
+        @Override
+        public PossiblyDouble mapToDouble(ToDoubleFunction<T> mapper) {
+            return PossiblyDouble.of(exception);
+        }
+        @Override
+        Exception exceptionOrNull() {
+            return exception;
+        }
+    }
+    /**
+     * The Possibly with no value and no exception. There is only the one
+     * instance, mapping and filtering return it
+     * @param <T> the type the Possibly would have had
+     */
+    private static final class Empty<T> extends Possibly<T> {
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+        @Override
+        public <U> Possibly<U> map(Function<T, U> mapper) {
+            return empty();
+        }
+        @Override
+        public <U> Possibly<U> flatMap(Function<T, ? extends Optional<? extends U>> mapper) {
+            return empty();
+        }
+        @Override
+        public Possibly<T> filter(Predicate<T> predicate) {
+            return this;
+        }
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * An asynchronous version of PossiblyFunction that runs the ExceptionFunction
+ * on an Executor and returns a CompletableFuture of the Possibly. An exception
+ * thrown by the ExceptionFunction completes the future normally with an
+ * exceptional Possibly, the future is never completed exceptionally. This
+ * allows many slow calls to be in flight at once
+ * <pre>List&lt;CompletableFuture&lt;Possibly&lt;String&gt;&gt;&gt; list = keys.stream()
+ *         .map(PossiblyAsyncFunction.of(k -&gt; lookup(k), executor))
+ *         .collect(Collectors.toList());</pre>
+ * @author randal kamradt
+ * @param <V> the type to map
+ * @param <R> the type to return
+ * @since 1.0.2
+ */
+public class PossiblyAsyncFunction<V, R> implements Function<V, CompletableFuture<Possibly<R>>> {
+    private final PossiblyFunction<V, R> f;
+    private final Executor executor;
+    /** 
+     * Create a PossiblyAsyncFunction that wraps the ExceptionFunction
+     * @param f the ExceptionFunction to wrap
+     * @param executor the Executor to run it on
+     */
+    private PossiblyAsyncFunction(final PossiblyFunction.ExceptionFunction<V, R> f,
+            final Executor executor) {
+        this.f = PossiblyFunction.of(f);
+        this.executor = executor;
+    }
+    /**
+     * used to publicly create a PossiblyAsyncFunction
+     * @param <V> The type of value to map
+     * @param <R> The type of return value that will be wrapped inside a Possibly
+     * @param f The wrapped function
+     * @param executor the Executor to run the function on
+     * @return A new PossiblyAsyncFunction
+     */
+    static public <V, R> PossiblyAsyncFunction<V, R> of(
+            final PossiblyFunction.ExceptionFunction<V, R> f, final Executor executor) {
+        return new PossiblyAsyncFunction<>(f, executor);
+    }
+    /** 
+     * Override of the Function.apply
+     * @param value the value to map
+     * @return A future of a Possibly with the mapped value or an exception. If
+     * the executor rejects the task the future is already complete with the
+     * rejection as the exception
+     */
+    @Override
+    public CompletableFuture<Possibly<R>> apply(V value) {
+        try {
+            return CompletableFuture.supplyAsync(() -> f.apply(value), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(Possibly.of(e));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * An asynchronous version of PossiblySupplier that runs the ExceptionSupplier
+ * on an Executor and returns a CompletableFuture of the Possibly. An exception
+ * thrown by the ExceptionSupplier completes the future normally with an
+ * exceptional Possibly, the future is never completed exceptionally
+ * @author randal kamradt
+ * @param <T> the type to supply
+ * @since 1.0.2
+ */
+public class PossiblyAsyncSupplier<T> implements Supplier<CompletableFuture<Possibly<T>>> {
+    private final PossiblySupplier<T> f;
+    private final Executor executor;
+    /** 
+     * Create a PossiblyAsyncSupplier that wraps the ExceptionSupplier
+     * @param f the ExceptionSupplier to wrap
+     * @param executor the Executor to run it on
+     */
+    private PossiblyAsyncSupplier(final PossiblySupplier.ExceptionSupplier<T> f,
+            final Executor executor) {
+        this.f = PossiblySupplier.of(f);
+        this.executor = executor;
+    }
+    /**
+     * used to publicly create a PossiblyAsyncSupplier
+     * @param <T> The type of value to supply that will be wrapped in a Possibly
+     * @param f The wrapped supplier
+     * @param executor the Executor to run the supplier on
+     * @return A new PossiblyAsyncSupplier
+     */
+    static public <T> PossiblyAsyncSupplier<T> of(
+            final PossiblySupplier.ExceptionSupplier<T> f, final Executor executor) {
+        return new PossiblyAsyncSupplier<>(f, executor);
+    }
+    /** 
+     * Override of the Supplier.get
+     * @return A future of a Possibly with the supplied value or an exception.
+     * If the executor rejects the task the future is already complete with the
+     * rejection as the exception
+     */
+    @Override
+    public CompletableFuture<Possibly<T>> get() {
+        try {
+            return CompletableFuture.supplyAsync(f, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(Possibly.of(e));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>A batching version of PossiblyFunction that wraps an ExceptionFunction
+ * over a whole list of values, for backends that are cheaper per element in
+ * bulk. Each value still gets its own Possibly.
+ *
+ * <p>If the ExceptionFunction throws for a batch, the batch is split in half
+ * and each half is tried again until the values that fail are found on their
+ * own. A single bad value in a batch of n costs about 2 log2(n) extra calls,
+ * and every other value in the batch still gets its result.
+ *
+ * <p>A batch that fails for a reason that has nothing to do with its values,
+ * such as a backend that is down, costs 2n-1 calls to split all the way
+ * down. A predicate passed to withSystemic can say which failures are
+ * systemic. A range that fails with one of those is given that failure for
+ * every value, without splitting it further.
+ *
+ * <p>For example the code
+ *
+ * <pre>Stream&lt;Possibly&lt;User&gt;&gt; users = PossiblyBatchFunction.of(ids -&gt; lookupAll(ids), 100)
+ *         .batch(ids);</pre>
+ *
+ * will look up the ids 100 at a time.
+ *
+ * @author randal kamradt
+ * @param <V> the type to map
+ * @param <R> the type to return
+ * @since 1.0.2
+ */
+public class PossiblyBatchFunction<V, R> implements Function<List<V>, List<Possibly<R>>> {
+    /**
+     * The batch function. It must return one result for each value, in the
+     * same order as the values
+     */
+    private final PossiblyFunction.ExceptionFunction<List<V>, List<R>> f;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final Predicate<Exception> systemic;
+    /** 
+     * Create a PossiblyBatchFunction that wraps the ExceptionFunction
+     * @param f the ExceptionFunction to wrap
+     * @param batchSize the largest number of values in a batch
+     * @param maxWaitNanos the longest time to spend filling a batch, or 0 for
+     * no limit
+     * @param systemic true for failures that are not split any further
+     */
+    private PossiblyBatchFunction(final PossiblyFunction.ExceptionFunction<List<V>, List<R>> f,
+            final int batchSize, final long maxWaitNanos,
+            final Predicate<Exception> systemic) {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("batch size must be at least 1");
+        this.f = f;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = maxWaitNanos;
+        this.systemic = systemic;
+    }
+    /**
+     * used to publicly create a PossiblyBatchFunction with batches bounded by
+     * size
+     * @param <V> The type of value to map
+     * @param <R> The type of return value that will be wrapped inside a Possibly
+     * @param f The wrapped batch function
+     * @param batchSize the largest number of values in a batch
+     * @return A new PossiblyBatchFunction
+     */
+    static public <V, R> PossiblyBatchFunction<V, R> of(
+            final PossiblyFunction.ExceptionFunction<List<V>, List<R>> f,
+            final int batchSize) {
+        return new PossiblyBatchFunction<>(f, batchSize, 0, e -> false);
+    }
+    /**
+     * used to publicly create a PossiblyBatchFunction with batches bounded by
+     * size and by the time spent filling them. The time is checked as each
+     * value is pulled from the stream, so a source that blocks can still hold
+     * up a batch
+     * @param <V> The type of value to map
+     * @param <R> The type of return value that will be wrapped inside a Possibly
+     * @param f The wrapped batch function
+     * @param batchSize the largest number of values in a batch
+     * @param maxWait the longest time to spend filling a batch
+     * @return A new PossiblyBatchFunction
+     */
+    static public <V, R> PossiblyBatchFunction<V, R> of(
+            final PossiblyFunction.ExceptionFunction<List<V>, List<R>> f,
+            final int batchSize, final Duration maxWait) {
+        return new PossiblyBatchFunction<>(f, batchSize, maxWait.toNanos(), e -> false);
+    }
+    /**
+     * Set which failures are systemic, such as a backend that is down. A
+     * range that fails with one of these is not split any further, every
+     * value in it gets the failure. By default no failure is systemic and a
+     * failed range is always split down to the values that fail
+     * @param systemic a predicate that is true for systemic failures
+     * @return a new PossiblyBatchFunction
+     */
+    public PossiblyBatchFunction<V, R> withSystemic(final Predicate<Exception> systemic) {
+        return new PossiblyBatchFunction<>(f, batchSize, maxWaitNanos, systemic);
+    }
+    /** 
+     * Override of the Function.apply. The values are passed to the batch
+     * function as is, in one batch, regardless of the batch size
+     * @param values the values to map
+     * @return A list with a Possibly for each value, in the same order
+     */
+    @Override
+    public List<Possibly<R>> apply(List<V> values) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Possibly<R>[] results = new Possibly[values.size()];
+        if(results.length > 0) {
+            Exception e = attempt(values, 0, results.length, results);
+            if(e != null) {
+                bisect(values, 0, results.length, results, e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+    /**
+     * Map a stream of values in batches
+     * @param values the stream of values to map
+     * @return a stream with a Possibly for each value, in the same order
+     */
+    public Stream<Possibly<R>> batch(Stream<V> values) {
+        return StreamSupport.stream(new BatchSpliterator(values.spliterator()), values.isParallel())
+                .onClose(values::close);
+    }
+    /**
+     * Apply the batch function to a range of the values
+     * @param values all of the values
+     * @param from the start of the range
+     * @param to the end of the range, exclusive
+     * @param results where to put the results
+     * @return null if the results were filled in, or the exception thrown
+     * for the range
+     */
+    private Exception attempt(List<V> values, int from, int to, Possibly<R>[] results) {
+        List<V> batch = from == 0 && to == values.size() ? values : values.subList(from, to);
+        try {
+            List<R> mapped = f.apply(batch);
+            if(mapped == null || mapped.size() != batch.size()) 
+                throw new IllegalStateException("batch function returned "
+                        + (mapped == null ? "null" : mapped.size() + " results")
+                        + " for " + batch.size() + " values");
+            for(int i = 0; i < mapped.size(); i++) {
+                R value = mapped.get(i);
+                results[from + i] = value == null
+                        ? Possibly.of(new IllegalArgumentException("value of Possibly cannot be null"))
+                        : Possibly.of(value);
+            }
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+    /**
+     * Split a range that failed in half and try each half, until the values
+     * that fail are found on their own or a range fails systemically
+     * @param values all of the values
+     * @param from the start of the range
+     * @param to the end of the range, exclusive
+     * @param results where to put the results
+     * @param e the exception thrown for the range
+     */
+    private void bisect(List<V> values, int from, int to, Possibly<R>[] results, Exception e) {
+        if(to - from == 1 || systemic.test(e)) {
+            Arrays.fill(results, from, to, Possibly.of(e));
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        Exception left = attempt(values, from, mid, results);
+        Exception right = attempt(values, mid, to, results);
+        if(left != null) {
+            bisect(values, from, mid, results, left);
+        }
+        if(right != null) {
+            bisect(values, mid, to, results, right);
+        }
+    }
+    /**
+     * Pull a batch of values from the source, map them, then hand out the
+     * results one at a time
+     */
+    private final class BatchSpliterator implements Spliterator<Possibly<R>> {
+        private final Spliterator<V> source;
+        private List<Possibly<R>> pending = Collections.emptyList();
+        private int index;
+
+        private BatchSpliterator(Spliterator<V> source) {
+            this.source = source;
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super Possibly<R>> action) {
+            if(index == pending.size() && !fill()) {
+                return false;
+            }
+            action.accept(pending.get(index++));
+            return true;
+        }
+        private boolean fill() {
+            List<V> values = new ArrayList<>(batchSize);
+            if(!source.tryAdvance(values::add)) {
+                return false;
+            }
+            long deadline = maxWaitNanos > 0 ? System.nanoTime() + maxWaitNanos : 0;
+            while(values.size() < batchSize
+                    && (deadline == 0 || System.nanoTime() - deadline < 0)
+                    && source.tryAdvance(values::add)) {
+            }
+            pending = apply(values);
+            index = 0;
+            return true;
+        }
+        @Override
+        public Spliterator<Possibly<R>> trySplit() {
+            if(index < pending.size()) {
+                return null;
+            }
+            Spliterator<V> split = source.trySplit();
+            return split == null ? null : new BatchSpliterator(split);
+        }
+        @Override
+        public long estimateSize() {
+            long size = source.estimateSize();
+            return size == Long.MAX_VALUE ? size : size + pending.size() - index;
+        }
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & (ORDERED | SIZED | SUBSIZED)) | NONNULL;
+        }
+    }
+}
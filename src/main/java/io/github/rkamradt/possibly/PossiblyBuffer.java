@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>A columnar buffer of Possibly results. Collecting results into a
+ * List&lt;Possibly&lt;T&gt;&gt; keeps a Possibly object for every element;
+ * this buffer keeps only the values, in arrays that grow in chunks so that
+ * a large buffer is never copied as it grows. A failure or empty element is
+ * marked in a bitmap and its exception is kept in a sparse side table, so
+ * the common all success case pays nothing for them.
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyBuffer&lt;Order&gt; orders = ids.parallelStream()
+ *         .map(PossiblyFunction.of(id -&gt; load(id)))
+ *         .collect(PossiblyBuffer.collector());</pre>
+ *
+ * collects the results of a parallel stream in order, and get and stream
+ * return Possibly views of the elements when they are read.
+ *
+ * <p>A buffer is not thread safe. Parallel streams collect into a buffer
+ * per thread and append them in order.
+ *
+ * @author randal kamradt
+ * @param <T> the type of the values
+ * @since 1.0.2
+ */
+public final class PossiblyBuffer<T> extends ChunkedBuffer<Object[]> {
+
+    private PossiblyBuffer() {
+    }
+    /**
+     * Create an empty buffer
+     * @param <T> the type of the values
+     * @return a new PossiblyBuffer
+     */
+    public static <T> PossiblyBuffer<T> of() {
+        return new PossiblyBuffer<>();
+    }
+    /**
+     * A collector into a PossiblyBuffer that keeps the encounter order of
+     * the stream
+     * @param <T> the type of the values
+     * @return the collector
+     */
+    public static <T> Collector<Possibly<T>, ?, PossiblyBuffer<T>> collector() {
+        return Collector.of(PossiblyBuffer::new, PossiblyBuffer::add, PossiblyBuffer::addAll,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+    /**
+     * Append a Possibly
+     * @param p the Possibly to append
+     */
+    public void add(Possibly<T> p) {
+        T value = p.valueOrNull();
+        if(value != null) {
+            addValue(value);
+        } else {
+            addFailure(p.exceptionOrNull());
+        }
+    }
+    /**
+     * Append a value
+     * @param value the value to append, it cannot be null
+     */
+    public void addValue(T value) {
+        if(value == null)
+            throw new IllegalArgumentException("value of PossiblyBuffer cannot be null");
+        slot(size)[size & CHUNK_MASK] = value;
+        size++;
+    }
+    /**
+     * Append all of the elements of another buffer after the elements of
+     * this one
+     * @param other the buffer to append
+     * @return this
+     */
+    public PossiblyBuffer<T> addAll(PossiblyBuffer<T> other) {
+        append(other);
+        return this;
+    }
+    /**
+     * Get a Possibly view of an element
+     * @param index the index of the element
+     * @return a Possibly with the value, the exception or empty
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public Possibly<T> get(int index) {
+        checkIndex(index);
+        if(failures.isMarked(index)) {
+            Exception e = failures.exception(index);
+            return e == null ? Possibly.empty() : Possibly.of(e);
+        }
+        return Possibly.of((T)chunk(index)[index & CHUNK_MASK]);
+    }
+    /**
+     * Stream Possibly views of all of the elements in order
+     * @return a stream of Possibly
+     */
+    public Stream<Possibly<T>> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+    /**
+     * Stream the values in order, skipping failures and empty elements
+     * @return a stream of the values
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<T> values() {
+        return IntStream.range(0, size)
+                .filter(i -> !failures.isMarked(i))
+                .mapToObj(i -> (T)chunk(i)[i & CHUNK_MASK]);
+    }
+    @Override
+    Object[] newChunk(int length) {
+        return new Object[length];
+    }
+    @Override
+    Object[] grow(Object[] chunk, int length) {
+        return Arrays.copyOf(chunk, length);
+    }
+    @Override
+    int length(Object[] chunk) {
+        return chunk.length;
+    }
+}
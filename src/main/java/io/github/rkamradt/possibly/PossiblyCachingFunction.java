@@ -0,0 +1,290 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>A memoizing version of PossiblyFunction that keeps the Possibly results
+ * of the ExceptionFunction in a bounded cache. Exceptional results can be kept
+ * for a different time than values, so a key that keeps failing does not go
+ * to the backend on every call, but is tried again sooner than a good value
+ * is refreshed.
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyCachingFunction&lt;String, User&gt; users = PossiblyCachingFunction.of(
+ *         id -&gt; lookup(id), 10_000, Duration.ofMinutes(5), Duration.ofSeconds(10));
+ * ids.map(users)</pre>
+ *
+ * will keep up to 10,000 users for 5 minutes and failed lookups for 10
+ * seconds.
+ *
+ * <p>The cache is split into segments by key hash, each with its own lock.
+ * Each segment is a segmented LRU, new keys go into a probation area and
+ * move to a protected area when they are used again. When a segment is full a
+ * new key is only admitted if it has been asked for more often than the key it
+ * would evict, which is estimated with a small frequency sketch (TinyLFU).
+ * This keeps one off keys from pushing popular keys out of the cache.
+ *
+ * <p>Concurrent misses on the same key will each call the ExceptionFunction.
+ *
+ * @author randal kamradt
+ * @param <V> the type to map
+ * @param <R> the type to return
+ * @since 1.0.2
+ */
+public final class PossiblyCachingFunction<V, R> implements Function<V, Possibly<R>> {
+    private final PossiblyFunction<V, R> f;
+    private final Segment<V, R>[] segments;
+    private final int segmentShift;
+    private final long successTtlNanos;
+    private final long failureTtlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private PossiblyCachingFunction(PossiblyFunction.ExceptionFunction<V, R> f,
+            int maximumSize, long successTtlNanos, long failureTtlNanos) {
+        this.f = PossiblyFunction.of(f);
+        int count = Math.min(Integer.highestOneBit(maximumSize),
+                Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<V, R>[] array = new Segment[count];
+        segments = array;
+        for(int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+        this.successTtlNanos = successTtlNanos;
+        this.failureTtlNanos = failureTtlNanos;
+    }
+    /**
+     * used to publicly create a PossiblyCachingFunction
+     * @param <V> The type of value to map
+     * @param <R> The type of return value that will be wrapped inside a Possibly
+     * @param f The wrapped function
+     * @param maximumSize the most results to keep
+     * @param successTtl how long to keep a value
+     * @param failureTtl how long to keep an exception, zero to not keep them
+     * @return A new PossiblyCachingFunction
+     */
+    static public <V, R> PossiblyCachingFunction<V, R> of(
+            final PossiblyFunction.ExceptionFunction<V, R> f, final int maximumSize,
+            final Duration successTtl, final Duration failureTtl) {
+        if(maximumSize < 1)
+            throw new IllegalArgumentException("maximum size must be at least 1");
+        return new PossiblyCachingFunction<>(f, maximumSize,
+                successTtl.toNanos(), failureTtl.toNanos());
+    }
+    /** 
+     * Override of the Function.apply
+     * @param value the value to map
+     * @return the cached Possibly, or a Possibly with the newly mapped value
+     * or an exception
+     */
+    @Override
+    public Possibly<R> apply(V value) {
+        int hash = hash(value);
+        Segment<V, R> segment = segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+        long now = System.nanoTime();
+        Possibly<R> cached;
+        synchronized(segment) {
+            cached = segment.get(value, hash, now);
+        }
+        if(cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Possibly<R> result = f.apply(value);
+        long ttl = result.exceptional() ? failureTtlNanos : successTtlNanos;
+        if(ttl > 0) {
+            synchronized(segment) {
+                if(segment.put(value, hash, new Entry<>(result, System.nanoTime() + ttl))) {
+                    evictions.increment();
+                }
+            }
+        }
+        return result;
+    }
+    /**
+     * Remove the result for a value so the next call maps it again
+     * @param value the value to forget
+     */
+    public void invalidate(V value) {
+        int hash = hash(value);
+        Segment<V, R> segment = segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+        synchronized(segment) {
+            segment.remove(value);
+        }
+    }
+    /**
+     * Remove all of the results
+     */
+    public void invalidateAll() {
+        for(Segment<V, R> segment : segments) {
+            synchronized(segment) {
+                segment.probation.clear();
+                segment.protect.clear();
+            }
+        }
+    }
+    /**
+     * the number of results currently held, including any that have expired
+     * but not yet been removed
+     * @return the number of results
+     */
+    public int size() {
+        int size = 0;
+        for(Segment<V, R> segment : segments) {
+            synchronized(segment) {
+                size += segment.probation.size() + segment.protect.size();
+            }
+        }
+        return size;
+    }
+    /**
+     * the number of calls answered from the cache
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+    /**
+     * the number of calls that had to call the ExceptionFunction
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+    /**
+     * the number of results removed to make room for others
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+    private static int hash(Object value) {
+        int h = value == null ? 0 : value.hashCode();
+        return (h ^ (h >>> 16)) * 0x45D9F3B;
+    }
+    /**
+     * A result and when it expires
+     * @param <R> the type of the result
+     */
+    private static final class Entry<R> {
+        private final Possibly<R> possibly;
+        private final long expiresAt;
+
+        private Entry(Possibly<R> possibly, long expiresAt) {
+            this.possibly = possibly;
+            this.expiresAt = expiresAt;
+        }
+    }
+    /**
+     * A segmented LRU with TinyLFU admission, guarded by its own monitor
+     * @param <V> the type of the keys
+     * @param <R> the type of the results
+     */
+    private static final class Segment<V, R> {
+        private final int capacity;
+        private final int protectCapacity;
+        private final LinkedHashMap<V, Entry<R>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<V, Entry<R>> protect = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.protectCapacity = capacity * 4 / 5;
+            this.sketch = new FrequencySketch(capacity);
+        }
+        private Possibly<R> get(V key, int hash, long now) {
+            sketch.increment(hash);
+            Entry<R> entry = protect.get(key);
+            if(entry == null) {
+                entry = probation.remove(key);
+                if(entry == null) {
+                    return null;
+                }
+                if(entry.expiresAt - now > 0) {
+                    promote(key, entry);
+                }
+            }
+            if(entry.expiresAt - now <= 0) {
+                protect.remove(key);
+                return null;
+            }
+            return entry.possibly;
+        }
+        /**
+         * move a key from probation to protected, pushing the least recently
+         * used protected key back to probation if protected is full
+         */
+        private void promote(V key, Entry<R> entry) {
+            protect.put(key, entry);
+            if(protect.size() > protectCapacity) {
+                Iterator<Map.Entry<V, Entry<R>>> eldest = protect.entrySet().iterator();
+                Map.Entry<V, Entry<R>> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        /**
+         * add a result if there is room or if it is used more often than the
+         * result it would evict
+         * @return true if another result was evicted
+         */
+        private boolean put(V key, int hash, Entry<R> entry) {
+            if(protect.containsKey(key)) {
+                protect.put(key, entry);
+                return false;
+            }
+            if(probation.containsKey(key) || probation.size() + protect.size() < capacity) {
+                probation.put(key, entry);
+                return false;
+            }
+            Map<V, Entry<R>> from = probation.isEmpty() ? protect : probation;
+            Iterator<Map.Entry<V, Entry<R>>> eldest = from.entrySet().iterator();
+            Map.Entry<V, Entry<R>> victim = eldest.next();
+            if(victim.getValue().expiresAt - System.nanoTime() > 0
+                    && sketch.frequency(hash) <= sketch.frequency(hash(victim.getKey()))) {
+                return false;
+            }
+            eldest.remove();
+            probation.put(key, entry);
+            return true;
+        }
+        private void remove(V key) {
+            if(protect.remove(key) == null) {
+                probation.remove(key);
+            }
+        }
+    }
+}
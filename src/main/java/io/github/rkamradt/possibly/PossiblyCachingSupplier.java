@@ -0,0 +1,187 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * <p>A caching version of PossiblySupplier for values such as configuration
+ * or tokens that are expensive to fetch and good for a while. The value is
+ * fetched once, and then refreshed on the executor shortly before it
+ * expires, so callers only read an AtomicReference and never wait on the
+ * fetch.
+ *
+ * <p>If a refresh fails the last good value is still returned until it has
+ * been expired for the stale grace period, so a short outage of the source is
+ * not seen by callers. A failed refresh is tried again after a tenth of the
+ * time to live. Only when there is no good value left does a caller fetch on
+ * its own thread and get the exception.
+ *
+ * <pre>PossiblyCachingSupplier&lt;String&gt; token = PossiblyCachingSupplier.of(() -&gt; fetchToken(),
+ *         Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofMinutes(5), executor);
+ * String current = token.get().getValue().get();</pre>
+ *
+ * @author randal kamradt
+ * @param <T> the type to supply
+ * @since 1.0.2
+ */
+public final class PossiblyCachingSupplier<T> implements Supplier<Possibly<T>> {
+    private final PossiblySupplier<T> f;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final long graceNanos;
+    private final Executor executor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicReference<Cached<T>> cached = new AtomicReference<>();
+    private volatile Exception lastFailure;
+
+    private PossiblyCachingSupplier(PossiblySupplier.ExceptionSupplier<T> f, long ttlNanos,
+            long refreshAheadNanos, long graceNanos, Executor executor) {
+        this.f = PossiblySupplier.of(f);
+        this.ttlNanos = ttlNanos;
+        this.refreshAheadNanos = refreshAheadNanos;
+        this.graceNanos = graceNanos;
+        this.executor = executor;
+    }
+    /**
+     * used to publicly create a PossiblyCachingSupplier
+     * @param <T> The type of value to supply that will be wrapped in a Possibly
+     * @param f The wrapped supplier
+     * @param ttl how long a value is good for
+     * @param refreshAhead how long before the value expires to start
+     * refreshing it
+     * @param staleGrace how long after the value expires to keep returning it
+     * while refreshes fail
+     * @param executor where to run the background refresh
+     * @return A new PossiblyCachingSupplier
+     */
+    static public <T> PossiblyCachingSupplier<T> of(final PossiblySupplier.ExceptionSupplier<T> f,
+            final Duration ttl, final Duration refreshAhead, final Duration staleGrace,
+            final Executor executor) {
+        if(ttl.isNegative() || ttl.isZero())
+            throw new IllegalArgumentException("ttl must be positive");
+        if(refreshAhead.isNegative() || refreshAhead.compareTo(ttl) >= 0)
+            throw new IllegalArgumentException("refresh ahead must be less than ttl");
+        if(staleGrace.isNegative())
+            throw new IllegalArgumentException("stale grace must not be negative");
+        return new PossiblyCachingSupplier<>(f, ttl.toNanos(), refreshAhead.toNanos(),
+                staleGrace.toNanos(), executor);
+    }
+    /** 
+     * Override of the Supplier.get
+     * @return the cached value, or a Possibly with a newly supplied value or
+     * an exception if there is no good value
+     */
+    @Override
+    public Possibly<T> get() {
+        Cached<T> c = cached.get();
+        if(c != null) {
+            long now = System.nanoTime();
+            if(now - c.refreshAt < 0) {
+                return c.possibly;
+            }
+            if(now - c.staleAt < 0) {
+                refresh(c);
+                return c.possibly;
+            }
+        }
+        return load();
+    }
+    /**
+     * the exception from the most recent failed fetch, cleared by a
+     * successful fetch
+     * @return the last failure or Optional.empty
+     */
+    public Optional<Exception> getLastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+    private synchronized Possibly<T> load() {
+        Cached<T> c = cached.get();
+        if(c != null && System.nanoTime() - c.staleAt < 0) {
+            return c.possibly;
+        }
+        Possibly<T> p = f.get();
+        update(p);
+        return p;
+    }
+    private void refresh(Cached<T> c) {
+        if(!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if(!update(f.get())) {
+                        // retry later, unless a load has stored a newer value
+                        cached.compareAndSet(c, new Cached<>(c.possibly,
+                                System.nanoTime() + ttlNanos / 10, c.staleAt));
+                    }
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lastFailure = e;
+            refreshing.set(false);
+        }
+    }
+    /**
+     * store a fetched value, or record the failure
+     * @param p the result of the fetch
+     * @return true if it was a value
+     */
+    private boolean update(Possibly<T> p) {
+        Exception e = p.exceptionOrNull();
+        if(e != null) {
+            lastFailure = e;
+            return false;
+        }
+        long now = System.nanoTime();
+        cached.set(new Cached<>(p, now + ttlNanos - refreshAheadNanos, now + ttlNanos + graceNanos));
+        lastFailure = null;
+        return true;
+    }
+    /**
+     * A good value with the time to start refreshing it and the time it can
+     * no longer be returned
+     * @param <T> the type of the value
+     */
+    private static final class Cached<T> {
+        private final Possibly<T> possibly;
+        private final long refreshAt;
+        private final long staleAt;
+
+        private Cached(Possibly<T> possibly, long refreshAt, long staleAt) {
+            this.possibly = possibly;
+            this.refreshAt = refreshAt;
+            this.staleAt = staleAt;
+        }
+    }
+}
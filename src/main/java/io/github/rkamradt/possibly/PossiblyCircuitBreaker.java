@@ -0,0 +1,308 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A circuit breaker around an ExceptionSupplier or ExceptionFunction. It
+ * counts the successes and failures over a sliding window, and when the
+ * failure rate goes over the threshold the circuit opens. While it is open
+ * every call fails right away with an OpenException instead of waiting on a
+ * dependency that is down. After the open duration one probe call is let
+ * through, if it succeeds the circuit closes again and if it fails the
+ * circuit stays open for another open duration.
+ *
+ * <p>The breaker wraps the exception throwing interfaces so it can be used
+ * with any of the Possibly wrappers
+ *
+ * <pre>PossiblyCircuitBreaker breaker = PossiblyCircuitBreaker.of(0.5, 20,
+ *         Duration.ofSeconds(10), Duration.ofSeconds(5));
+ * ids.map(PossiblyFunction.of(breaker.wrap(id -&gt; lookup(id))))</pre>
+ *
+ * <p>The window is a ring of buckets that are replaced with compare and set
+ * as time moves on, and the state is changed with compare and set, so there
+ * are no locks on the call path. The OpenException is preallocated without a
+ * stack trace so failing fast does not allocate.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyCircuitBreaker {
+    /**
+     * The state of the circuit
+     */
+    public enum State {
+        /** calls are let through and counted */
+        CLOSED,
+        /** calls fail fast */
+        OPEN,
+        /** one probe call is let through to test for recovery */
+        HALF_OPEN
+    }
+    /**
+     * The exception returned while the circuit is open. There is one shared
+     * instance with no stack trace
+     */
+    public static final class OpenException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private OpenException() {
+            super("circuit breaker is open", null, false, false);
+        }
+    }
+    private static final OpenException OPEN_EXCEPTION = new OpenException();
+    private static final int BUCKETS = 10;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketNanos;
+    private final long openNanos;
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long openedAt;
+
+    private PossiblyCircuitBreaker(double failureRateThreshold, int minimumCalls,
+            long windowNanos, long openNanos) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.bucketNanos = Math.max(1, windowNanos / BUCKETS);
+        this.openNanos = openNanos;
+        reset();
+    }
+    /**
+     * Create a circuit breaker
+     * @param failureRateThreshold the failure rate, between 0 and 1, at which
+     * the circuit opens
+     * @param minimumCalls the fewest calls in the window before the failure
+     * rate is checked
+     * @param window how far back to count calls
+     * @param openDuration how long to stay open before a probe
+     * @return a new closed circuit breaker
+     */
+    public static PossiblyCircuitBreaker of(double failureRateThreshold,
+            int minimumCalls, Duration window, Duration openDuration) {
+        if(!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0))
+            throw new IllegalArgumentException("failure rate threshold must be greater than 0 and at most 1");
+        if(minimumCalls < 1)
+            throw new IllegalArgumentException("minimum calls must be at least 1");
+        return new PossiblyCircuitBreaker(failureRateThreshold, minimumCalls,
+                window.toNanos(), openDuration.toNanos());
+    }
+    /**
+     * Wrap a supplier with this circuit breaker
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @return a supplier that throws an OpenException while the circuit is open
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f) {
+        return () -> {
+            boolean probe = acquire();
+            boolean succeeded = false;
+            try {
+                T result = f.get();
+                succeeded = true;
+                return result;
+            } finally {
+                if(succeeded) {
+                    onSuccess(probe);
+                } else {
+                    onFailure(probe);
+                }
+            }
+        };
+    }
+    /**
+     * Wrap a function with this circuit breaker
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return a function that throws an OpenException while the circuit is open
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f) {
+        return value -> {
+            boolean probe = acquire();
+            boolean succeeded = false;
+            try {
+                R result = f.apply(value);
+                succeeded = true;
+                return result;
+            } finally {
+                if(succeeded) {
+                    onSuccess(probe);
+                } else {
+                    onFailure(probe);
+                }
+            }
+        };
+    }
+    /**
+     * the current state of the circuit
+     * @return the state
+     */
+    public State getState() {
+        return state.get();
+    }
+    /**
+     * the failure rate over the current window
+     * @return the failure rate between 0 and 1, or 0 if there were no calls
+     */
+    public double getFailureRate() {
+        long epoch = Math.floorDiv(System.nanoTime(), bucketNanos);
+        long successes = 0;
+        long failures = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if(bucket.epoch > epoch - BUCKETS) {
+                successes += bucket.successes;
+                failures += bucket.failures;
+            }
+        }
+        long calls = successes + failures;
+        return calls == 0 ? 0.0 : (double)failures / calls;
+    }
+    /**
+     * Check that a call may go ahead
+     * @return true if the call is the half open probe
+     * @throws OpenException if the circuit is open
+     */
+    private boolean acquire() throws OpenException {
+        State s = state.get();
+        if(s == State.CLOSED) {
+            return false;
+        }
+        if(s == State.OPEN) {
+            if(System.nanoTime() - openedAt < openNanos
+                    || !state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                throw OPEN_EXCEPTION;
+            }
+        }
+        if(probing.compareAndSet(false, true)) {
+            // the state may have moved on since it was read, a probe that
+            // already closed the circuit makes this a normal call
+            s = state.get();
+            if(s == State.HALF_OPEN) {
+                return true;
+            }
+            probing.set(false);
+            if(s == State.CLOSED) {
+                return false;
+            }
+        }
+        throw OPEN_EXCEPTION;
+    }
+    private void onSuccess(boolean probe) {
+        if(probe) {
+            reset();
+            state.set(State.CLOSED);
+            probing.set(false);
+        } else {
+            bucket().increment(Bucket.SUCCESSES);
+        }
+    }
+    private void onFailure(boolean probe) {
+        if(probe) {
+            open();
+            probing.set(false);
+            return;
+        }
+        bucket().increment(Bucket.FAILURES);
+        if(state.get() == State.CLOSED && overThreshold()) {
+            open();
+        }
+    }
+    private void open() {
+        openedAt = System.nanoTime();
+        state.set(State.OPEN);
+    }
+    /**
+     * empty the window, used when the circuit closes
+     */
+    private void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, new Bucket(Long.MIN_VALUE));
+        }
+    }
+    /**
+     * get the bucket for now, replacing a stale bucket in its slot
+     * @return the current bucket
+     */
+    private Bucket bucket() {
+        long epoch = Math.floorDiv(System.nanoTime(), bucketNanos);
+        int index = (int)Math.floorMod(epoch, (long)BUCKETS);
+        while(true) {
+            Bucket bucket = buckets.get(index);
+            if(bucket.epoch == epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if(buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+    /**
+     * add up the buckets in the window without allocating, this is on the
+     * path of every failure
+     * @return true if there are enough calls and the failure rate is at or
+     * over the threshold
+     */
+    private boolean overThreshold() {
+        long epoch = Math.floorDiv(System.nanoTime(), bucketNanos);
+        long successes = 0;
+        long failures = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if(bucket.epoch > epoch - BUCKETS) {
+                successes += bucket.successes;
+                failures += bucket.failures;
+            }
+        }
+        long calls = successes + failures;
+        return calls >= minimumCalls && failures >= failureRateThreshold * calls;
+    }
+    /**
+     * The counts for one slice of the window
+     */
+    private static final class Bucket {
+        private static final AtomicLongFieldUpdater<Bucket> SUCCESSES =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "successes");
+        private static final AtomicLongFieldUpdater<Bucket> FAILURES =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "failures");
+        private final long epoch;
+        private volatile long successes;
+        private volatile long failures;
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+        private void increment(AtomicLongFieldUpdater<Bucket> counter) {
+            counter.incrementAndGet(this);
+        }
+    }
+}
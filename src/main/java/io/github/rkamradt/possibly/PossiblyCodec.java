@@ -0,0 +1,460 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A compact binary codec for Possibly that writes to and reads from
+ * ByteBuffers. Each Possibly starts with a one byte tag for a value, an
+ * exception or empty. A value is written by a pluggable ValueCodec, and an
+ * exception is written as its class name, its message and at most maxFrames
+ * of its stack trace, so a stack trace is never carried along unless it is
+ * asked for.
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyCodec&lt;Long&gt; codec = PossiblyCodec.of(PossiblyCodec.LONG, 3);
+ * channel.write(codec.encodeAll(results));</pre>
+ *
+ * sizes one direct buffer for the whole batch with sizeOf, encodes every
+ * result into it and hands it to a FileChannel without a further copy. The
+ * decoded exceptions are DecodedExceptions that report the original class
+ * name, message and frames.
+ *
+ * <p>Strings are written as an int length followed by UTF-8 bytes, with a
+ * length of -1 for null, and all numbers are big-endian. Every length and
+ * count is checked against the bytes remaining before anything is
+ * allocated, so corrupt or truncated input decodes to a failed Possibly.
+ *
+ * @author randal kamradt
+ * @param <T> the type of the values
+ * @since 1.0.2
+ */
+public final class PossiblyCodec<T> {
+    /**
+     * The tag of an empty Possibly
+     */
+    public static final byte EMPTY = 0;
+    /**
+     * The tag of a Possibly with a value
+     */
+    public static final byte VALUE = 1;
+    /**
+     * The tag of an exceptional Possibly
+     */
+    public static final byte EXCEPTION = 2;
+    /**
+     * The smallest encoded frame, three null strings and a line number
+     */
+    private static final int MIN_FRAME = 4 * Integer.BYTES;
+    /**
+     * Strings as a length and UTF-8 bytes
+     */
+    public static final ValueCodec<String> STRING = new ValueCodec<String>() {
+        @Override
+        public int sizeOf(String value) {
+            return stringSize(value);
+        }
+        @Override
+        public void encode(String value, ByteBuffer buf) {
+            putString(value, buf);
+        }
+        @Override
+        public String decode(ByteBuffer buf) {
+            return getString(buf);
+        }
+    };
+    /**
+     * Integers as four bytes
+     */
+    public static final ValueCodec<Integer> INT = new ValueCodec<Integer>() {
+        @Override
+        public int sizeOf(Integer value) {
+            return Integer.BYTES;
+        }
+        @Override
+        public void encode(Integer value, ByteBuffer buf) {
+            buf.putInt(value);
+        }
+        @Override
+        public Integer decode(ByteBuffer buf) {
+            return buf.getInt();
+        }
+    };
+    /**
+     * Longs as eight bytes
+     */
+    public static final ValueCodec<Long> LONG = new ValueCodec<Long>() {
+        @Override
+        public int sizeOf(Long value) {
+            return Long.BYTES;
+        }
+        @Override
+        public void encode(Long value, ByteBuffer buf) {
+            buf.putLong(value);
+        }
+        @Override
+        public Long decode(ByteBuffer buf) {
+            return buf.getLong();
+        }
+    };
+    /**
+     * Doubles as eight bytes
+     */
+    public static final ValueCodec<Double> DOUBLE = new ValueCodec<Double>() {
+        @Override
+        public int sizeOf(Double value) {
+            return Double.BYTES;
+        }
+        @Override
+        public void encode(Double value, ByteBuffer buf) {
+            buf.putDouble(value);
+        }
+        @Override
+        public Double decode(ByteBuffer buf) {
+            return buf.getDouble();
+        }
+    };
+    /**
+     * Byte arrays as a length and the bytes
+     */
+    public static final ValueCodec<byte[]> BYTES = new ValueCodec<byte[]>() {
+        @Override
+        public int sizeOf(byte[] value) {
+            return Integer.BYTES + value.length;
+        }
+        @Override
+        public void encode(byte[] value, ByteBuffer buf) {
+            buf.putInt(value.length);
+            buf.put(value);
+        }
+        @Override
+        public byte[] decode(ByteBuffer buf) {
+            byte[] value = new byte[count(buf, 1)];
+            buf.get(value);
+            return value;
+        }
+    };
+    private final ValueCodec<T> valueCodec;
+    private final int maxFrames;
+
+    private PossiblyCodec(ValueCodec<T> valueCodec, int maxFrames) {
+        this.valueCodec = valueCodec;
+        this.maxFrames = maxFrames;
+    }
+    /**
+     * Create a codec that writes exceptions without their stack traces
+     * @param <T> the type of the values
+     * @param valueCodec the codec for the values
+     * @return a new PossiblyCodec
+     */
+    public static <T> PossiblyCodec<T> of(ValueCodec<T> valueCodec) {
+        return of(valueCodec, 0);
+    }
+    /**
+     * Create a codec that writes at most maxFrames of each stack trace
+     * @param <T> the type of the values
+     * @param valueCodec the codec for the values
+     * @param maxFrames the number of frames from the top of each stack
+     * trace to write, zero for none
+     * @return a new PossiblyCodec
+     */
+    public static <T> PossiblyCodec<T> of(ValueCodec<T> valueCodec, int maxFrames) {
+        if(valueCodec == null)
+            throw new IllegalArgumentException("valueCodec of PossiblyCodec cannot be null");
+        if(maxFrames < 0)
+            throw new IllegalArgumentException("maxFrames of PossiblyCodec cannot be negative");
+        return new PossiblyCodec<>(valueCodec, maxFrames);
+    }
+    /**
+     * The number of bytes that encode will write for the Possibly
+     * @param p the Possibly to size
+     * @return the encoded size in bytes
+     */
+    public int sizeOf(Possibly<T> p) {
+        T value = p.valueOrNull();
+        if(value != null) {
+            return 1 + valueCodec.sizeOf(value);
+        }
+        Exception e = p.exceptionOrNull();
+        if(e == null) {
+            return 1;
+        }
+        int size = 1 + stringSize(className(e)) + stringSize(e.getMessage()) + Integer.BYTES;
+        StackTraceElement[] frames = e.getStackTrace();
+        for(int i = 0; i < Math.min(maxFrames, frames.length); i++) {
+            StackTraceElement frame = frames[i];
+            size += stringSize(frame.getClassName()) + stringSize(frame.getMethodName())
+                    + stringSize(frame.getFileName()) + Integer.BYTES;
+        }
+        return size;
+    }
+    /**
+     * Encode the Possibly at the position of the buffer
+     * @param p the Possibly to encode
+     * @param buf the buffer to write to, it must have sizeOf(p) bytes
+     * remaining
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void encode(Possibly<T> p, ByteBuffer buf) {
+        T value = p.valueOrNull();
+        if(value != null) {
+            buf.put(VALUE);
+            valueCodec.encode(value, buf);
+            return;
+        }
+        Exception e = p.exceptionOrNull();
+        if(e == null) {
+            buf.put(EMPTY);
+            return;
+        }
+        buf.put(EXCEPTION);
+        putString(className(e), buf);
+        putString(e.getMessage(), buf);
+        StackTraceElement[] frames = e.getStackTrace();
+        int count = Math.min(maxFrames, frames.length);
+        buf.putInt(count);
+        for(int i = 0; i < count; i++) {
+            StackTraceElement frame = frames[i];
+            putString(frame.getClassName(), buf);
+            putString(frame.getMethodName(), buf);
+            putString(frame.getFileName(), buf);
+            buf.putInt(frame.getLineNumber());
+        }
+    }
+    /**
+     * Encode the Possibly into a new heap buffer of exactly its size
+     * @param p the Possibly to encode
+     * @return a buffer ready to be read or written to a channel
+     */
+    public ByteBuffer encode(Possibly<T> p) {
+        ByteBuffer buf = ByteBuffer.allocate(sizeOf(p));
+        encode(p, buf);
+        ((Buffer)buf).flip();
+        return buf;
+    }
+    /**
+     * Encode all of the Possibly into one direct buffer sized to hold them
+     * exactly, so that it can be written to a FileChannel without a copy
+     * @param possiblies the Possibly to encode
+     * @return a direct buffer ready to be written to a channel
+     * @throws IllegalArgumentException if the encoded size is more than a
+     * buffer can hold
+     */
+    public ByteBuffer encodeAll(List<Possibly<T>> possiblies) {
+        int size = 0;
+        for(Possibly<T> p : possiblies) {
+            try {
+                size = Math.addExact(size, sizeOf(p));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("possiblies are too large to encode in one buffer", e);
+            }
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(size);
+        for(Possibly<T> p : possiblies) {
+            encode(p, buf);
+        }
+        ((Buffer)buf).flip();
+        return buf;
+    }
+    /**
+     * Decode one Possibly at the position of the buffer. If the input is
+     * corrupt or ends early, the rest of the buffer can not be trusted, so it
+     * is skipped and the failure is returned
+     * @param buf the buffer to read from
+     * @return the decoded Possibly, an exception is returned as a
+     * DecodedException. Corrupt input returns an exceptional Possibly with an
+     * IllegalArgumentException, or a BufferUnderflowException if the buffer
+     * ends early
+     */
+    public Possibly<T> decode(ByteBuffer buf) {
+        try {
+            byte tag = buf.get();
+            switch(tag) {
+                case VALUE:
+                    return Possibly.of(valueCodec.decode(buf));
+                case EMPTY:
+                    return Possibly.empty();
+                case EXCEPTION:
+                    String className = getString(buf);
+                    String message = getString(buf);
+                    StackTraceElement[] frames = new StackTraceElement[count(buf, MIN_FRAME)];
+                    for(int i = 0; i < frames.length; i++) {
+                        frames[i] = new StackTraceElement(getString(buf), getString(buf),
+                                getString(buf), buf.getInt());
+                    }
+                    return Possibly.of(new DecodedException(className, message, frames));
+                default:
+                    throw new IllegalArgumentException("unknown Possibly tag " + tag);
+            }
+        } catch (RuntimeException e) {
+            ((Buffer)buf).position(buf.limit());
+            return Possibly.of(e);
+        }
+    }
+    /**
+     * Decode every Possibly remaining in the buffer
+     * @param buf the buffer to read from
+     * @return the decoded Possibly in order, ending with the failure if the
+     * input is corrupt
+     */
+    public List<Possibly<T>> decodeAll(ByteBuffer buf) {
+        List<Possibly<T>> result = new ArrayList<>();
+        while(buf.hasRemaining()) {
+            result.add(decode(buf));
+        }
+        return result;
+    }
+    /**
+     * The class name to write for an exception, a decoded exception keeps
+     * the name of the exception it was decoded from
+     */
+    private static String className(Exception e) {
+        return e instanceof DecodedException
+                ? ((DecodedException)e).getClassName()
+                : e.getClass().getName();
+    }
+    /**
+     * The encoded size of a string without encoding it
+     */
+    private static int stringSize(String s) {
+        if(s == null) {
+            return Integer.BYTES;
+        }
+        int size = Integer.BYTES;
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if(c < 0x80) {
+                size += 1;
+            } else if(c < 0x800) {
+                size += 2;
+            } else if(Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if(Character.isSurrogate(c)) {
+                size += 1;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+    private static void putString(String s, ByteBuffer buf) {
+        if(s == null) {
+            buf.putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buf.putInt(bytes.length);
+        buf.put(bytes);
+    }
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if(length == -1) {
+            return null;
+        }
+        if(length < 0 || length > buf.remaining()) {
+            throw new IllegalArgumentException("corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    /**
+     * Read a count of items and check that the buffer has room for them
+     * @param buf the buffer to read from
+     * @param minSize the fewest bytes each item can take
+     * @return the count
+     * @throws IllegalArgumentException if the count is negative or the items
+     * can not fit in the bytes remaining
+     */
+    private static int count(ByteBuffer buf, int minSize) {
+        int count = buf.getInt();
+        if(count < 0 || count > buf.remaining() / minSize) {
+            throw new IllegalArgumentException("corrupt count " + count);
+        }
+        return count;
+    }
+    /**
+     * Writes and reads the values of a PossiblyCodec
+     * @param <T> the type of the values
+     */
+    public interface ValueCodec<T> {
+        /**
+         * The number of bytes encode will write for the value
+         * @param value the value, never null
+         * @return the encoded size in bytes
+         */
+        int sizeOf(T value);
+        /**
+         * Write the value at the position of the buffer
+         * @param value the value, never null
+         * @param buf the buffer to write to
+         */
+        void encode(T value, ByteBuffer buf);
+        /**
+         * Read a value at the position of the buffer
+         * @param buf the buffer to read from
+         * @return the value, never null
+         */
+        T decode(ByteBuffer buf);
+    }
+    /**
+     * An exception decoded by a PossiblyCodec. It reports the class name,
+     * message and frames that were written, and does not capture a stack
+     * trace of its own
+     */
+    public static final class DecodedException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final String className;
+
+        private DecodedException(String className, String message, StackTraceElement[] frames) {
+            super(message);
+            this.className = className;
+            setStackTrace(frames);
+        }
+        /**
+         * The class name of the exception that was encoded
+         * @return the class name
+         */
+        public String getClassName() {
+            return className;
+        }
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            return message == null ? className : className + ": " + message;
+        }
+    }
+}
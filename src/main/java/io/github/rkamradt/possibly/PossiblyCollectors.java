@@ -0,0 +1,579 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collector;
+
+/**
+ * <p>Collectors for a Stream&lt;Possibly&lt;T&gt;&gt; that split the values
+ * from the exceptions in a single pass.
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyCollectors.Partition&lt;String&gt; partition = lines.stream()
+ *         .map(PossiblyFunction.of(s -&gt; mapWithException(s)))
+ *         .collect(PossiblyCollectors.partitioning());</pre>
+ *
+ * will collect the values into one list and the exceptions into another.
+ * Empty Possibly elements are counted but not collected.
+ *
+ * <p>The concurrent variants are meant for parallel streams. All threads
+ * accumulate into one shared container that is striped by thread, so there
+ * is no per-segment container to merge and little contention between the
+ * threads. The order of the collected values is not preserved.
+ *
+ * <p>summarizingExceptions counts the exceptions by signature in a fixed
+ * amount of memory instead of keeping them all.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyCollectors {
+    private static final int TOP_FRAMES = 3;
+    private static final int MAX_MESSAGE = 200;
+
+    private PossiblyCollectors() {
+    }
+    /**
+     * A collector that partitions the values and exceptions into two lists in
+     * encounter order
+     * @param <T> the type of the Possibly
+     * @return a collector that returns a Partition
+     */
+    public static <T> Collector<Possibly<T>, ?, Partition<T>> partitioning() {
+        return Collector.of(Partition<T>::new, Partition::add, Partition::addAll);
+    }
+    /**
+     * A concurrent collector that partitions the values and exceptions into
+     * two lists for a parallel stream. The order of the lists is not defined
+     * @param <T> the type of the Possibly
+     * @return a concurrent collector that returns a Partition
+     */
+    public static <T> Collector<Possibly<T>, ?, Partition<T>> partitioningConcurrent() {
+        return Collector.of(StripedPartition<T>::new, StripedPartition::add,
+                StripedPartition::merge, StripedPartition::finish,
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+    /**
+     * A collector that counts the values, exceptions and empty elements
+     * @param <T> the type of the Possibly
+     * @return a collector that returns the Counts
+     */
+    public static <T> Collector<Possibly<T>, ?, Counts> counting() {
+        return Collector.of(() -> new long[3],
+                (long[] counts, Possibly<T> p) -> counts[index(p)]++,
+                (left, right) -> {
+                    for(int i = 0; i < left.length; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                },
+                counts -> new Counts(counts[0], counts[1], counts[2]));
+    }
+    /**
+     * A concurrent collector that counts the values, exceptions and empty
+     * elements of a parallel stream with striped counters
+     * @param <T> the type of the Possibly
+     * @return a concurrent collector that returns the Counts
+     */
+    public static <T> Collector<Possibly<T>, ?, Counts> countingConcurrent() {
+        return Collector.of(
+                () -> new LongAdder[] {new LongAdder(), new LongAdder(), new LongAdder()},
+                (LongAdder[] counts, Possibly<T> p) -> counts[index(p)].increment(),
+                (left, right) -> {
+                    if(left != right) {
+                        for(int i = 0; i < left.length; i++) {
+                            left[i].add(right[i].sum());
+                        }
+                    }
+                    return left;
+                },
+                counts -> new Counts(counts[0].sum(), counts[1].sum(), counts[2].sum()),
+                Collector.Characteristics.CONCURRENT, Collector.Characteristics.UNORDERED);
+    }
+    /**
+     * A collector that counts the exceptions by signature, made of the
+     * exception class, the message with the numbers taken out and the top
+     * three stack frames. Only the k most frequent signatures are kept, with
+     * the first exception seen for each as an exemplar, so the memory used
+     * does not grow with the number of exceptions.
+     *
+     * <p>The counts use the Space-Saving algorithm. When a new signature
+     * arrives and k are already kept, it replaces the least frequent one and
+     * takes over its count, which is recorded as the possible error. A
+     * signature that is more frequent than 1/k of the exceptions is always
+     * kept. Partial results of a parallel stream are merged by adding the
+     * counts and keeping the top k. A signature that was not kept by one
+     * side is given that side's smallest count, added to both its count and
+     * its error, so the merged counts are never too low
+     * @param <T> the type of the Possibly
+     * @param k the number of signatures to keep
+     * @return a collector that returns an ExceptionSummary
+     */
+    public static <T> Collector<Possibly<T>, ?, ExceptionSummary> summarizingExceptions(int k) {
+        if(k < 1)
+            throw new IllegalArgumentException("k must be at least 1");
+        return Collector.of(() -> new SpaceSaving(k), SpaceSaving::add,
+                SpaceSaving::merge, SpaceSaving::finish,
+                Collector.Characteristics.UNORDERED);
+    }
+    /**
+     * the slot to count a Possibly in
+     * @param p the Possibly to count
+     * @return 0 for a value, 1 for an exception or 2 for empty
+     */
+    private static int index(Possibly<?> p) {
+        return p.is() ? 0 : p.exceptional() ? 1 : 2;
+    }
+    /**
+     * The values and the exceptions collected from a stream
+     * @param <T> the type of the values
+     */
+    public static final class Partition<T> {
+        private final List<T> values;
+        private final List<Exception> exceptions;
+        private long empty;
+
+        private Partition() {
+            this(new ArrayList<>(), new ArrayList<>(), 0);
+        }
+        private Partition(List<T> values, List<Exception> exceptions, long empty) {
+            this.values = values;
+            this.exceptions = exceptions;
+            this.empty = empty;
+        }
+        /**
+         * the values of all the Possibly elements that had a value
+         * @return the list of values
+         */
+        public List<T> getValues() {
+            return values;
+        }
+        /**
+         * the exceptions of all the exceptional Possibly elements
+         * @return the list of exceptions
+         */
+        public List<Exception> getExceptions() {
+            return exceptions;
+        }
+        /**
+         * the number of empty Possibly elements
+         * @return the count of empty elements
+         */
+        public long getEmpty() {
+            return empty;
+        }
+        private void add(Possibly<T> p) {
+            T value = p.valueOrNull();
+            if(value != null) {
+                values.add(value);
+                return;
+            }
+            Exception exception = p.exceptionOrNull();
+            if(exception != null) {
+                exceptions.add(exception);
+            } else {
+                empty++;
+            }
+        }
+        private Partition<T> addAll(Partition<T> other) {
+            values.addAll(other.values);
+            exceptions.addAll(other.exceptions);
+            empty += other.empty;
+            return this;
+        }
+    }
+    /**
+     * The number of values, exceptions and empty elements in a stream
+     */
+    public static final class Counts {
+        private final long values;
+        private final long exceptions;
+        private final long empty;
+
+        private Counts(long values, long exceptions, long empty) {
+            this.values = values;
+            this.exceptions = exceptions;
+            this.empty = empty;
+        }
+        /**
+         * the number of Possibly elements with a value
+         * @return the count of values
+         */
+        public long getValues() {
+            return values;
+        }
+        /**
+         * the number of exceptional Possibly elements
+         * @return the count of exceptions
+         */
+        public long getExceptions() {
+            return exceptions;
+        }
+        /**
+         * the number of empty Possibly elements
+         * @return the count of empty elements
+         */
+        public long getEmpty() {
+            return empty;
+        }
+    }
+    /**
+     * The most frequent exception signatures collected from a stream
+     */
+    public static final class ExceptionSummary {
+        private final long total;
+        private final List<ExceptionSignature> signatures;
+
+        private ExceptionSummary(long total, List<ExceptionSignature> signatures) {
+            this.total = total;
+            this.signatures = signatures;
+        }
+        /**
+         * the number of exceptional Possibly elements
+         * @return the count of exceptions
+         */
+        public long getTotal() {
+            return total;
+        }
+        /**
+         * the kept signatures, most frequent first
+         * @return the list of signatures
+         */
+        public List<ExceptionSignature> getSignatures() {
+            return signatures;
+        }
+    }
+    /**
+     * A group of exceptions with the same class, normalized message and top
+     * stack frames
+     */
+    public static final class ExceptionSignature {
+        private final String type;
+        private final String message;
+        private final List<StackTraceElement> frames;
+        private final int hash;
+        private long count;
+        private long error;
+        private Exception exemplar;
+        private int index;
+
+        private ExceptionSignature(Exception exception) {
+            type = exception.getClass().getName();
+            message = normalize(exception.getMessage());
+            StackTraceElement[] trace = exception.getStackTrace();
+            frames = Collections.unmodifiableList(Arrays.asList(
+                    Arrays.copyOf(trace, Math.min(TOP_FRAMES, trace.length))));
+            hash = (type.hashCode() * 31 + message.hashCode()) * 31 + frames.hashCode();
+        }
+        private ExceptionSignature(ExceptionSignature other) {
+            type = other.type;
+            message = other.message;
+            frames = other.frames;
+            hash = other.hash;
+            count = other.count;
+            error = other.error;
+            exemplar = other.exemplar;
+        }
+        /**
+         * the class name of the exceptions
+         * @return the class name
+         */
+        public String getType() {
+            return type;
+        }
+        /**
+         * the message of the exceptions with each run of digits replaced by #
+         * @return the normalized message
+         */
+        public String getMessage() {
+            return message;
+        }
+        /**
+         * the top stack frames of the exceptions
+         * @return up to three stack frames
+         */
+        public List<StackTraceElement> getFrames() {
+            return frames;
+        }
+        /**
+         * the number of exceptions counted for the signature. This may be
+         * more than the real number by up to the error
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+        /**
+         * how much the count may be over the real number
+         * @return the most the count is over
+         */
+        public long getError() {
+            return error;
+        }
+        /**
+         * the first exception kept for the signature
+         * @return an exception with the signature
+         */
+        public Exception getExemplar() {
+            return exemplar;
+        }
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof ExceptionSignature)) {
+                return false;
+            }
+            ExceptionSignature other = (ExceptionSignature)o;
+            return hash == other.hash && type.equals(other.type)
+                    && message.equals(other.message) && frames.equals(other.frames);
+        }
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        @Override
+        public String toString() {
+            return count + " " + type + ": " + message + (frames.isEmpty() ? "" : " at " + frames.get(0));
+        }
+        private static String normalize(String message) {
+            if(message == null) {
+                return "";
+            }
+            int length = Math.min(message.length(), MAX_MESSAGE);
+            StringBuilder sb = new StringBuilder(length);
+            boolean digits = false;
+            for(int i = 0; i < length; i++) {
+                char c = message.charAt(i);
+                if(Character.isDigit(c)) {
+                    if(!digits) {
+                        sb.append('#');
+                    }
+                    digits = true;
+                } else {
+                    sb.append(c);
+                    digits = false;
+                }
+            }
+            return sb.toString();
+        }
+    }
+    /**
+     * The Space-Saving counters for the exception summary collector. The
+     * counters are kept in a map by signature and in a min-heap by count, so
+     * counting an exception or evicting the least frequent signature is
+     * O(log k) and merging is O(k log k)
+     */
+    private static final class SpaceSaving {
+        private final int k;
+        private final Map<ExceptionSignature, ExceptionSignature> counters;
+        private final ExceptionSignature[] heap;
+        private int size;
+        private long total;
+
+        private SpaceSaving(int k) {
+            this.k = k;
+            this.counters = new HashMap<>(k * 2);
+            this.heap = new ExceptionSignature[k];
+        }
+        private void add(Possibly<?> p) {
+            Exception exception = p.exceptionOrNull();
+            if(exception == null) {
+                return;
+            }
+            total++;
+            ExceptionSignature key = new ExceptionSignature(exception);
+            ExceptionSignature counter = counters.get(key);
+            if(counter != null) {
+                counter.count++;
+                siftDown(counter.index);
+                return;
+            }
+            key.exemplar = exception;
+            if(size == k) {
+                ExceptionSignature min = heap[0];
+                counters.remove(min);
+                key.count = min.count + 1;
+                key.error = min.count;
+                key.index = 0;
+                heap[0] = key;
+                siftDown(0);
+            } else {
+                key.count = 1;
+                key.index = size;
+                heap[size++] = key;
+                siftUp(key.index);
+            }
+            counters.put(key, key);
+        }
+        private SpaceSaving merge(SpaceSaving other) {
+            total += other.total;
+            long myMin = floor();
+            long theirMin = other.floor();
+            for(ExceptionSignature mine : counters.values()) {
+                if(!other.counters.containsKey(mine)) {
+                    mine.count += theirMin;
+                    mine.error += theirMin;
+                }
+            }
+            for(ExceptionSignature theirs : other.counters.values()) {
+                ExceptionSignature mine = counters.get(theirs);
+                if(mine == null) {
+                    theirs.count += myMin;
+                    theirs.error += myMin;
+                    counters.put(theirs, theirs);
+                } else {
+                    mine.count += theirs.count;
+                    mine.error += theirs.error;
+                }
+            }
+            if(counters.size() > k) {
+                List<ExceptionSignature> all = new ArrayList<>(counters.values());
+                all.sort((a, b) -> Long.compare(b.count, a.count));
+                for(int i = k; i < all.size(); i++) {
+                    counters.remove(all.get(i));
+                }
+            }
+            size = 0;
+            for(ExceptionSignature counter : counters.values()) {
+                counter.index = size;
+                heap[size++] = counter;
+            }
+            for(int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+            return this;
+        }
+        /**
+         * The most a signature that is not kept can have been seen, zero
+         * if nothing has been evicted yet
+         */
+        private long floor() {
+            return size < k ? 0 : heap[0].count;
+        }
+        private void siftUp(int i) {
+            ExceptionSignature counter = heap[i];
+            while(i > 0) {
+                int parent = (i - 1) >>> 1;
+                if(heap[parent].count <= counter.count) {
+                    break;
+                }
+                place(heap[parent], i);
+                i = parent;
+            }
+            place(counter, i);
+        }
+        private void siftDown(int i) {
+            ExceptionSignature counter = heap[i];
+            int half = size >>> 1;
+            while(i < half) {
+                int child = 2 * i + 1;
+                if(child + 1 < size && heap[child + 1].count < heap[child].count) {
+                    child++;
+                }
+                if(counter.count <= heap[child].count) {
+                    break;
+                }
+                place(heap[child], i);
+                i = child;
+            }
+            place(counter, i);
+        }
+        private void place(ExceptionSignature counter, int i) {
+            heap[i] = counter;
+            counter.index = i;
+        }
+        private ExceptionSummary finish() {
+            List<ExceptionSignature> signatures = new ArrayList<>(counters.size());
+            for(ExceptionSignature counter : counters.values()) {
+                signatures.add(new ExceptionSignature(counter));
+            }
+            signatures.sort((a, b) -> Long.compare(b.count, a.count));
+            return new ExceptionSummary(total, Collections.unmodifiableList(signatures));
+        }
+    }
+    /**
+     * A shared container for the concurrent partitioning collector. Each
+     * thread hashes to its own stripe, so threads rarely contend for the
+     * stripe lock
+     * @param <T> the type of the values
+     */
+    private static final class StripedPartition<T> {
+        private final Partition<T>[] stripes;
+        private final int mask;
+
+        private StripedPartition() {
+            int size = Integer.highestOneBit(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Partition<T>[] array = new Partition[size];
+            stripes = array;
+            for(int i = 0; i < size; i++) {
+                stripes[i] = new Partition<>();
+            }
+            mask = size - 1;
+        }
+        private void add(Possibly<T> p) {
+            long id = Thread.currentThread().getId();
+            Partition<T> stripe = stripes[(int)(id ^ (id >>> 16)) & mask];
+            synchronized(stripe) {
+                stripe.add(p);
+            }
+        }
+        private StripedPartition<T> merge(StripedPartition<T> other) {
+            if(other != this) {
+                for(int i = 0; i < stripes.length; i++) {
+                    stripes[i].addAll(other.stripes[i]);
+                }
+            }
+            return this;
+        }
+        private Partition<T> finish() {
+            int values = 0;
+            int exceptions = 0;
+            long empty = 0;
+            for(Partition<T> stripe : stripes) {
+                values += stripe.values.size();
+                exceptions += stripe.exceptions.size();
+                empty += stripe.empty;
+            }
+            Partition<T> result = new Partition<>(new ArrayList<>(values),
+                    new ArrayList<>(exceptions), empty);
+            for(Partition<T> stripe : stripes) {
+                result.values.addAll(stripe.values);
+                result.exceptions.addAll(stripe.exceptions);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A limit on the number of calls in flight that adjusts itself from the
+ * latency and failures of the calls. A call that finishes within the latency
+ * threshold while the limiter is at least half full raises the limit by
+ * 1/limit, so the limit grows by about one for each limit's worth of calls.
+ * A call that fails or takes longer than the threshold cuts the limit by a
+ * tenth, at most once per threshold so that a burst of failures counts as
+ * one signal. This is additive increase, multiplicative decrease, the same
+ * way TCP finds the capacity of a network.
+ *
+ * <pre>PossiblyConcurrencyLimiter limiter = PossiblyConcurrencyLimiter.of(10, 200, Duration.ofMillis(100));
+ * ids.parallel().map(PossiblyFunction.of(limiter.wrap(id -&gt; lookup(id))))</pre>
+ *
+ * <p>A call over the limit is not queued, it fails right away with a
+ * LimitExceededException. The exception is preallocated without a stack
+ * trace, so a rejection does not allocate. The calls in flight are counted
+ * with a compare and set and the limit is kept in an AtomicLong, so there
+ * are no locks on the call path.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyConcurrencyLimiter {
+    /**
+     * The exception for a call that is over the limit
+     */
+    public static final class LimitExceededException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private LimitExceededException() {
+            super("concurrency limit exceeded", null, false, false);
+        }
+    }
+    private static final LimitExceededException LIMIT_EXCEEDED = new LimitExceededException();
+    private static final double BACKOFF_RATIO = 0.9;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicLong limit;
+    private final AtomicLong lastDecrease;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private PossiblyConcurrencyLimiter(int initialLimit, int maxLimit, long latencyThresholdNanos) {
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+        this.lastDecrease = new AtomicLong(System.nanoTime() - latencyThresholdNanos);
+    }
+    /**
+     * used to publicly create a PossiblyConcurrencyLimiter
+     * @param initialLimit the limit to start with
+     * @param maxLimit the most the limit can grow to
+     * @param latencyThreshold the latency above which a call is taken as a
+     * sign of overload
+     * @return A new PossiblyConcurrencyLimiter
+     */
+    static public PossiblyConcurrencyLimiter of(final int initialLimit, final int maxLimit,
+            final Duration latencyThreshold) {
+        if(initialLimit < 1 || maxLimit < initialLimit)
+            throw new IllegalArgumentException("limits must be at least 1 and max must not be less than initial");
+        if(latencyThreshold.isNegative() || latencyThreshold.isZero())
+            throw new IllegalArgumentException("latency threshold must be positive");
+        return new PossiblyConcurrencyLimiter(initialLimit, maxLimit, latencyThreshold.toNanos());
+    }
+    /**
+     * Wrap a supplier so it only runs within the limit
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @return a supplier that throws a LimitExceededException when over the
+     * limit
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f) {
+        return () -> {
+            acquire();
+            long start = System.nanoTime();
+            boolean succeeded = false;
+            try {
+                T result = f.get();
+                succeeded = true;
+                return result;
+            } finally {
+                release(start, !succeeded);
+            }
+        };
+    }
+    /**
+     * Wrap a function so it only runs within the limit
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return a function that throws a LimitExceededException when over the
+     * limit
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f) {
+        return value -> {
+            acquire();
+            long start = System.nanoTime();
+            boolean succeeded = false;
+            try {
+                R result = f.apply(value);
+                succeeded = true;
+                return result;
+            } finally {
+                release(start, !succeeded);
+            }
+        };
+    }
+    /**
+     * the current limit on calls in flight
+     * @return the limit
+     */
+    public int getLimit() {
+        return (int)Double.longBitsToDouble(limit.get());
+    }
+    /**
+     * the number of calls in flight
+     * @return the number of calls
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    /**
+     * the number of calls rejected since the limiter was created
+     * @return the number of rejected calls
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+    /**
+     * count a call in if it is within the limit
+     * @throws LimitExceededException if the limit is reached
+     */
+    private void acquire() throws LimitExceededException {
+        int max = getLimit();
+        while(true) {
+            int current = inFlight.get();
+            if(current >= max) {
+                rejected.increment();
+                throw LIMIT_EXCEEDED;
+            }
+            if(inFlight.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+    /**
+     * count a call out and adjust the limit
+     * @param start the nanoTime the call started
+     * @param failed whether the call threw an exception
+     */
+    private void release(long start, boolean failed) {
+        long now = System.nanoTime();
+        int current = inFlight.getAndDecrement();
+        if(failed || now - start > latencyThresholdNanos) {
+            decrease(now);
+        } else {
+            increase(current);
+        }
+    }
+    private void increase(int current) {
+        while(true) {
+            long bits = limit.get();
+            double value = Double.longBitsToDouble(bits);
+            if(current * 2 < value || value >= maxLimit) {
+                return;
+            }
+            double next = Math.min(maxLimit, value + 1.0 / value);
+            if(limit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+    private void decrease(long now) {
+        long last = lastDecrease.get();
+        if(now - last < latencyThresholdNanos || !lastDecrease.compareAndSet(last, now)) {
+            return;
+        }
+        while(true) {
+            long bits = limit.get();
+            double next = Math.max(1.0, Double.longBitsToDouble(bits) * BACKOFF_RATIO);
+            if(limit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
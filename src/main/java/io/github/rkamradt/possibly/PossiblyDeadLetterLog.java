@@ -0,0 +1,477 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>An append-only log of the inputs that failed, so they can be replayed
+ * later. The wrap methods record the input and the exception of every
+ * failed call, and the exception is still thrown to the Possibly wrapper as
+ * usual.
+ *
+ * <pre>PossiblyDeadLetterLog&lt;String&gt; deadLetters = PossiblyDeadLetterLog.of(dir,
+ *         s -&gt; s.getBytes(StandardCharsets.UTF_8));
+ * lines.forEach(PossiblyConsumer.of(deadLetters.wrapConsumer(s -&gt; send(s))));
+ * ...
+ * deadLetters.replay(b -&gt; send(StandardCharsets.UTF_8.decode(b).toString()))</pre>
+ *
+ * <p>The calling thread only adds the input and exception to a bounded
+ * lock-free queue. If the queue is full the entry is dropped and counted,
+ * the caller is never blocked. A background thread encodes the entries in
+ * batches and appends them to a memory-mapped segment file, starting a new
+ * segment when one is full. Each record is a four byte length followed by
+ * the time, the encoded input and a summary of the exception, and a zero
+ * length marks the end of the records in a segment.
+ *
+ * <p>The records are in the page cache as soon as they are written, so they
+ * survive the process ending. Call flush to wait for the queue to be written
+ * and forced to disk. Closing the log writes what is queued, and an entry
+ * recorded during or after close is dropped and counted.
+ *
+ * @author randal kamradt
+ * @param <T> the type of the inputs
+ * @since 1.0.2
+ */
+public final class PossiblyDeadLetterLog<T> implements Closeable {
+    static final String PREFIX = "deadletter-";
+    static final String SUFFIX = ".log";
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int HEADER = 4 + 8 + 4;
+    private static final int BATCH = 256;
+    private final Path directory;
+    private final Function<? super T, byte[]> encoder;
+    private final int capacity;
+    private final int segmentSize;
+    private final ConcurrentLinkedQueue<Entry<T>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private final Object flushLock = new Object();
+    private volatile boolean parked;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile long written;
+    private volatile long flushRequested;
+    private volatile long flushed;
+    private long segment;
+    private MappedByteBuffer buffer;
+
+    private PossiblyDeadLetterLog(Path directory, Function<? super T, byte[]> encoder,
+            int capacity, int segmentSize, long segment) {
+        this.directory = directory;
+        this.encoder = encoder;
+        this.capacity = capacity;
+        this.segmentSize = segmentSize;
+        this.segment = segment;
+        writer = new Thread(this::run, "possibly-dead-letter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    /**
+     * used to publicly create a PossiblyDeadLetterLog
+     * @param <T> The type of the inputs
+     * @param directory the directory for the segment files
+     * @param encoder the function to turn an input into bytes
+     * @return A new PossiblyDeadLetterLog
+     * @throws IOException if the directory cannot be created or read
+     */
+    static public <T> PossiblyDeadLetterLog<T> of(final Path directory,
+            final Function<? super T, byte[]> encoder) throws IOException {
+        return of(directory, encoder, DEFAULT_CAPACITY, DEFAULT_SEGMENT_SIZE);
+    }
+    /**
+     * used to publicly create a PossiblyDeadLetterLog
+     * @param <T> The type of the inputs
+     * @param directory the directory for the segment files
+     * @param encoder the function to turn an input into bytes
+     * @param capacity the most entries waiting to be written
+     * @param segmentSize the size of each segment file
+     * @return A new PossiblyDeadLetterLog
+     * @throws IOException if the directory cannot be created or read
+     */
+    static public <T> PossiblyDeadLetterLog<T> of(final Path directory,
+            final Function<? super T, byte[]> encoder, final int capacity,
+            final int segmentSize) throws IOException {
+        if(capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        if(segmentSize <= HEADER + 4)
+            throw new IllegalArgumentException("segment size is too small");
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        long next = segments.isEmpty() ? 0 : sequence(segments.get(segments.size() - 1)) + 1;
+        return new PossiblyDeadLetterLog<>(directory, encoder, capacity, segmentSize, next);
+    }
+    /**
+     * Wrap a function so the input of every failed call is recorded
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return the recording function
+     */
+    public <R> PossiblyFunction.ExceptionFunction<T, R> wrap(PossiblyFunction.ExceptionFunction<T, R> f) {
+        return value -> {
+            try {
+                return f.apply(value);
+            } catch (Exception e) {
+                record(value, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Wrap a consumer so the input of every failed call is recorded
+     * @param f the consumer to wrap
+     * @return the recording consumer
+     */
+    public PossiblyConsumer.ExceptionConsumer<T> wrapConsumer(PossiblyConsumer.ExceptionConsumer<T> f) {
+        return value -> {
+            try {
+                f.accept(value);
+            } catch (Exception e) {
+                record(value, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Add an input and its exception to the queue to be written
+     * @param input the input that failed
+     * @param exception the exception
+     * @return true if it was queued, false if the queue was full
+     */
+    public boolean record(T input, Exception exception) {
+        if(closed) {
+            dropped.increment();
+            return false;
+        }
+        if(size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        accepted.increment();
+        Entry<T> entry = new Entry<>(input, exception, System.currentTimeMillis());
+        queue.add(entry);
+        if(closed && queue.remove(entry)) {
+            // the writer may have already stopped, so take the entry back
+            size.decrementAndGet();
+            accepted.decrement();
+            dropped.increment();
+            return false;
+        }
+        if(parked) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+    /**
+     * Wait until everything queued so far has been written and forced to disk
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public void flush() throws InterruptedException {
+        long target = accepted.sum();
+        synchronized(flushLock) {
+            if(target > flushRequested) {
+                flushRequested = target;
+            }
+            LockSupport.unpark(writer);
+            while(flushed < target && !stopped) {
+                flushLock.wait();
+            }
+        }
+    }
+    /**
+     * Write what is queued and stop the writer. Entries recorded after close
+     * are dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // anything that raced close and was not taken back by its recorder
+        while(queue.poll() != null) {
+            size.decrementAndGet();
+            dropped.increment();
+        }
+    }
+    /**
+     * the number of entries dropped because the queue was full or could not
+     * be written
+     * @return the number of dropped entries
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+    /**
+     * Read the records in all of the segments, oldest first. The inputs are
+     * views of the mapped files, nothing is copied
+     * @return a stream of the records
+     * @throws IOException if the directory cannot be read
+     */
+    public Stream<DeadLetter> read() throws IOException {
+        return read(directory);
+    }
+    /**
+     * Run every recorded input through a function again
+     * @param <R> the type to return
+     * @param f the function taking the encoded input
+     * @return a stream of the results
+     * @throws IOException if the directory cannot be read
+     */
+    public <R> Stream<Possibly<R>> replay(PossiblyFunction.ExceptionFunction<ByteBuffer, R> f) throws IOException {
+        return read().map(PossiblyFunction.of(d -> f.apply(d.getInput())));
+    }
+    /**
+     * Read the records in all of the segments in a directory, oldest first
+     * @param directory the directory of a PossiblyDeadLetterLog
+     * @return a stream of the records
+     * @throws IOException if the directory cannot be read
+     */
+    public static Stream<DeadLetter> read(Path directory) throws IOException {
+        return segments(directory).stream().flatMap(path -> {
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return StreamSupport.stream(new SegmentSpliterator(mapped), false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    private static List<Path> segments(Path directory) throws IOException {
+        try(Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+    private static long sequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+    /**
+     * Write the queue in batches, force the segment when a flush asks for
+     * entries that have been written since the last force, and park when
+     * there is nothing to do. Closing writes what is queued and forces it
+     */
+    private void run() {
+        List<Entry<T>> batch = new ArrayList<>(BATCH);
+        try {
+            while(true) {
+                Entry<T> entry;
+                while(batch.size() < BATCH && (entry = queue.poll()) != null) {
+                    batch.add(entry);
+                }
+                if(!batch.isEmpty()) {
+                    size.addAndGet(-batch.size());
+                    for(Entry<T> e : batch) {
+                        write(e);
+                    }
+                    written += batch.size();
+                    batch.clear();
+                    continue;
+                }
+                boolean done = closed;
+                if(done && !queue.isEmpty()) {
+                    continue;
+                }
+                if(done || (flushRequested > flushed && written > flushed)) {
+                    force();
+                    if(done) {
+                        return;
+                    }
+                    continue;
+                }
+                parked = true;
+                if(queue.isEmpty() && !closed && !(flushRequested > flushed && written > flushed)) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        } finally {
+            synchronized(flushLock) {
+                stopped = true;
+                flushLock.notifyAll();
+            }
+        }
+    }
+    private void force() {
+        if(buffer != null) {
+            buffer.force();
+        }
+        synchronized(flushLock) {
+            flushed = written;
+            flushLock.notifyAll();
+        }
+    }
+    private void write(Entry<T> entry) {
+        try {
+            byte[] input = encoder.apply(entry.input);
+            byte[] summary = summary(entry.exception).getBytes(StandardCharsets.UTF_8);
+            int length = HEADER - 4 + input.length + summary.length;
+            if(buffer == null || buffer.remaining() < length + 8) {
+                nextSegment(length + 8);
+            }
+            // the length goes in last so a reader never sees a partial record
+            int start = buffer.position();
+            ((Buffer)buffer).position(start + 4);
+            buffer.putLong(entry.timestamp);
+            buffer.putInt(input.length);
+            buffer.put(input);
+            buffer.put(summary);
+            buffer.putInt(start, length);
+        } catch (IOException | RuntimeException e) {
+            dropped.increment();
+        }
+    }
+    private void nextSegment(int needed) throws IOException {
+        if(buffer != null) {
+            buffer.force();
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, segment++, SUFFIX));
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, needed));
+        }
+    }
+    private static String summary(Exception e) {
+        String message = e.getMessage();
+        return message == null ? e.getClass().getName() : e.getClass().getName() + ": " + message;
+    }
+    /**
+     * An input waiting to be written
+     * @param <T> the type of the input
+     */
+    private static final class Entry<T> {
+        private final T input;
+        private final Exception exception;
+        private final long timestamp;
+
+        private Entry(T input, Exception exception, long timestamp) {
+            this.input = input;
+            this.exception = exception;
+            this.timestamp = timestamp;
+        }
+    }
+    /**
+     * A record read back from the log
+     */
+    public static final class DeadLetter {
+        private final long timestamp;
+        private final ByteBuffer input;
+        private final String summary;
+
+        private DeadLetter(long timestamp, ByteBuffer input, String summary) {
+            this.timestamp = timestamp;
+            this.input = input;
+            this.summary = summary;
+        }
+        /**
+         * when the input failed
+         * @return the time in milliseconds since the epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+        /**
+         * the encoded input
+         * @return a read-only view of the input bytes
+         */
+        public ByteBuffer getInput() {
+            return input.duplicate();
+        }
+        /**
+         * the class and message of the exception
+         * @return the exception summary
+         */
+        public String getSummary() {
+            return summary;
+        }
+    }
+    /**
+     * Reads the records of one mapped segment up to the zero length marker
+     */
+    private static final class SegmentSpliterator extends Spliterators.AbstractSpliterator<DeadLetter> {
+        private final ByteBuffer segment;
+
+        private SegmentSpliterator(MappedByteBuffer segment) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.segment = segment;
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super DeadLetter> action) {
+            if(segment.remaining() < HEADER) {
+                return false;
+            }
+            int length = segment.getInt();
+            if(length <= 0 || length > segment.remaining()) {
+                return false;
+            }
+            long timestamp = segment.getLong();
+            int inputLength = segment.getInt();
+            int start = segment.position();
+            int end = start - (HEADER - 4) + length;
+            ByteBuffer view = segment.duplicate();
+            ((Buffer)view).limit(start + inputLength);
+            ByteBuffer input = view.slice();
+            ((Buffer)view).limit(end);
+            ((Buffer)view).position(start + inputLength);
+            String summary = StandardCharsets.UTF_8.decode(view).toString();
+            ((Buffer)segment).position(end);
+            action.accept(new DeadLetter(timestamp, input, summary));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.function.Consumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+
+/**
+ * <p>A primitive specialization of Possibly that holds a double value or an
+ * Exception. It is patterned on OptionalDouble the same way Possibly is patterned
+ * on Optional, and the value is never boxed on either the success or the
+ * failure path.
+ *
+ * <p>For example the code
+ *
+ * <pre>lines.map(PossiblyToDoubleFunction.of(s -&gt; parse(s)))</pre>
+ *
+ * will create a
+ *
+ * <pre>Stream&lt;PossiblyDouble&gt;</pre>
+ *
+ * where each parsed number is held as a double rather than a Double.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public abstract class PossiblyDouble {
+    /**
+     * Singleton instance of an empty PossiblyDouble
+     */
+    private static final PossiblyDouble EMPTY = new Empty();
+    /**
+     * Only the nested value, exception and empty forms can extend PossiblyDouble
+     */
+    private PossiblyDouble() {
+    }
+    /**
+     * Create a PossiblyDouble that holds a value
+     * @param value The value to create it with
+     * @return a new PossiblyDouble with the value
+     */
+    public static PossiblyDouble of(double value) {
+        return new Value(value);
+    }
+    /**
+     * Create an exceptional PossiblyDouble. this object will never have a value
+     * and the exception cannot be null
+     * @param exception The exception to create it with
+     * @return a new exceptional PossiblyDouble
+     */
+    public static PossiblyDouble of(Exception exception) {
+        if(exception == null)
+            throw new IllegalArgumentException("exception of PossiblyDouble cannot be null");
+        return new Failure(exception);
+    }
+    /**
+     * Return an empty PossiblyDouble. this object will never have a value or an
+     * exception
+     * @return an empty PossiblyDouble
+     */
+    public static PossiblyDouble empty() {
+        return EMPTY;
+    }
+    /**
+     * Predicate function to return if there is a value. Note that this will
+     * return false if the PossiblyDouble is empty <i>or</i> if it an exceptional
+     * PossiblyDouble
+     * @return true if the value is present otherwise false
+     */
+    public abstract boolean is();
+    /**
+     * Predicate function to return if there is an exception
+     * @return true if there is an exception
+     */
+    public abstract boolean exceptional();
+    /**
+     * Predicate function to check for an empty PossiblyDouble (one with no value
+     * and no exception)
+     * @return true if there is no value and no exception
+     */
+    public abstract boolean isEmpty();
+    /**
+     * Perform some action if there is an exception. Can be used for logging
+     * or other actions that produce side-effects
+     * @param action the action to perform
+     * @return this
+     */
+    public PossiblyDouble doOnException(Consumer<Exception> action) {
+        return this;
+    }
+    /**
+     * get the value as an OptionalDouble
+     * @return the value as OptionalDouble or OptionalDouble.empty
+     */
+    public OptionalDouble getValue() {
+        return OptionalDouble.empty();
+    }
+    /**
+     * get a possible exception as an Optional
+     * @return the exception as an Optional or Optional.empty
+     */
+    public Optional<Exception> getException() {
+        return Optional.empty();
+    }
+    /**
+     * get the value without wrapping it
+     * @param other the value to return if there is no value
+     * @return the value or other
+     */
+    public double orElse(double other) {
+        return other;
+    }
+    /**
+     * Map the value if there is one using the mapper function
+     * @param mapper a mapper function
+     * @return a PossiblyDouble with the mapped value
+     */
+    public PossiblyDouble map(DoubleUnaryOperator mapper) {
+        return this;
+    }
+    /**
+     * Map the value to an object if there is one using the mapper function
+     * @param <U> The new type of the Possibly
+     * @param mapper a mapper function
+     * @return a Possibly of type U
+     */
+    public abstract <U> Possibly<U> mapToObj(DoubleFunction<U> mapper);
+    /**
+     * filter base on the predicate function.
+     * @param predicate the predicate function
+     * @return this or an empty PossiblyDouble
+     */
+    public PossiblyDouble filter(DoublePredicate predicate) {
+        return this;
+    }
+    /**
+     * return the value as a DoubleStream of zero or one item
+     * @return a DoubleStream of zero or one item
+     */
+    public DoubleStream stream() {
+        return DoubleStream.empty();
+    }
+    /**
+     * A PossiblyDouble that holds a value
+     */
+    private static final class Value extends PossiblyDouble {
+        private final double value;
+
+        private Value(double value) {
+            this.value = value;
+        }
+        @Override
+        public boolean is() {
+            return true;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public OptionalDouble getValue() {
+            return OptionalDouble.of(value);
+        }
+        @Override
+        public double orElse(double other) {
+            return value;
+        }
+        @Override
+        public PossiblyDouble map(DoubleUnaryOperator mapper) {
+            return new Value(mapper.applyAsDouble(value));
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(DoubleFunction<U> mapper) {
+            return Possibly.ofNullable(mapper.apply(value));
+        }
+        @Override
+        public PossiblyDouble filter(DoublePredicate predicate) {
+            return predicate.test(value) ? this : EMPTY;
+        }
+        @Override
+        public DoubleStream stream() {
+            return DoubleStream.of(value);
+        }
+    }
+    /**
+     * A PossiblyDouble that holds an exception
+     */
+    private static final class Failure extends PossiblyDouble {
+        private final Exception exception;
+
+        private Failure(Exception exception) {
+            this.exception = exception;
+        }
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return true;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public PossiblyDouble doOnException(Consumer<Exception> action) {
+            action.accept(exception);
+            return this;
+        }
+        @Override
+        public Optional<Exception> getException() {
+            return Optional.of(exception);
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(DoubleFunction<U> mapper) {
+            return Possibly.of(exception);
+        }
+    }
+    /**
+     * The PossiblyDouble with no value and no exception
+     */
+    private static final class Empty extends PossiblyDouble {
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(DoubleFunction<U> mapper) {
+            return Possibly.empty();
+        }
+    }
+}
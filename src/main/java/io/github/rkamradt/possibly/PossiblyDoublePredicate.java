@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Consumer;
+import java.util.function.DoublePredicate;
+
+/**
+ * A replacement for DoublePredicate that will execute a Consumer&lt;Exception&gt;
+ * if it throws an error. This will allow using methods that throw a checked
+ * exception to be used in a DoubleStream filter. If the Exception Consumer throws
+ * a unchecked exception, that exception will ripple through.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public class PossiblyDoublePredicate implements DoublePredicate {
+    /**
+     * Replacement for DoublePredicate type except it adds throws Exception to the
+     * test method.
+     */
+    private final ExceptionDoublePredicate f;
+    private final Consumer<Exception> e;
+    /** 
+     * Create a PossiblyDoublePredicate that wraps the ExceptionDoublePredicate
+     * @param f the ExceptionDoublePredicate to wrap
+     * @param e a Consumer to do something with an exception, or null to ignore
+     */
+    private PossiblyDoublePredicate(final ExceptionDoublePredicate f,
+            final Consumer<Exception> e) {
+        this.f = f;
+        this.e = e;
+    }
+    /**
+     * used to publicly create a PossiblyDoublePredicate
+     * @param f The wrapped predicate
+     * @param e the exception consumer
+     * @return A new PossiblyDoublePredicate
+     */
+    static public PossiblyDoublePredicate of(final ExceptionDoublePredicate f,
+            final Consumer<Exception> e) {
+        return new PossiblyDoublePredicate(f, e);
+    }
+    /**
+     * used to publicly create a PossiblyDoublePredicate that throws away any
+     * exceptions
+     * @param f The wrapped predicate
+     * @return A new PossiblyDoublePredicate
+     */
+    static public PossiblyDoublePredicate of(final ExceptionDoublePredicate f) {
+        return new PossiblyDoublePredicate(f, null);
+    }
+    /** 
+     * Override of the DoublePredicate.test
+     * @param value the value to test
+     * @return the result of the test, or false if there was an exception
+     */
+    @Override
+    public boolean test(double value) {
+        try {
+            return f.test(value);
+        } catch (Exception ex) {
+            if(e != null) {
+                e.accept(ex);
+            }
+            return false;
+        }
+    }
+    /**
+     * An DoublePredicate that allows checked exceptions
+     */
+    @FunctionalInterface
+    public interface ExceptionDoublePredicate {
+        /**
+         * Test a value and return true or false
+         * @param value the value to test
+         * @return the result of the test
+         * @throws Exception to be caught by the wrapping class
+         */
+        boolean test(double value) throws Exception;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Supplier;
+
+/**
+ * A replacement for DoubleSupplier that will return a PossiblyDouble to contain a
+ * value or an exception. This will allow using methods that throw a checked
+ * exception to be used in a lambda without boxing the supplied value
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public class PossiblyDoubleSupplier implements Supplier<PossiblyDouble> {
+    /**
+     * Replacement for DoubleSupplier type except it adds throws Exception to the
+     * getAsDouble method. This class wraps this interface to create a PossiblyDouble
+     * with a value or an exception
+     */
+    private final ExceptionDoubleSupplier f;
+    /** 
+     * Create a PossiblyDoubleSupplier that wraps the ExceptionDoubleSupplier
+     * @param f the ExceptionDoubleSupplier to wrap
+     */
+    private PossiblyDoubleSupplier(final ExceptionDoubleSupplier f) {
+        this.f = f;
+    }
+    /**
+     * used to publicly create a PossiblyDoubleSupplier
+     * @param f The wrapped supplier
+     * @return A new PossiblyDoubleSupplier
+     */
+    static public PossiblyDoubleSupplier of(final ExceptionDoubleSupplier f) {
+        return new PossiblyDoubleSupplier(f);
+    }
+    /** 
+     * Override of the Supplier.get
+     * @return A PossiblyDouble with the supplied value or an exception
+     */
+    @Override
+    public PossiblyDouble get() {
+        try {
+            return PossiblyDouble.of(f.getAsDouble());
+        } catch (Exception e) {
+            return PossiblyDouble.of(e);
+        }
+    }
+    /**
+     * An DoubleSupplier that allows checked exceptions
+     */
+    @FunctionalInterface
+    public interface ExceptionDoubleSupplier {
+        /**
+         * Get a value from the supplier
+         * @return the supplied value
+         * @throws Exception to be caught by the wrapping class
+         */
+        double getAsDouble() throws Exception;
+    }
+}
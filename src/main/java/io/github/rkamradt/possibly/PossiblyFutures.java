@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Helpers to compose CompletableFutures of Possibly values, such as the
+ * ones returned by PossiblyAsyncFunction and PossiblyAsyncSupplier. The
+ * futures returned from these methods are never completed exceptionally,
+ * a failure at any step is returned as an exceptional Possibly.
+ *
+ * <p>For example the code
+ *
+ * <pre>CompletableFuture&lt;List&lt;Possibly&lt;Integer&gt;&gt;&gt; all = PossiblyFutures.allOf(keys.stream()
+ *         .map(PossiblyAsyncFunction.of(k -&gt; lookup(k), executor))
+ *         .map(f -&gt; PossiblyFutures.thenApplyPossibly(f, s -&gt; parse(s)))
+ *         .collect(Collectors.toList()));</pre>
+ *
+ * will start all the lookups at once and complete when all of them have
+ * completed, with the successes and failures in the same order as the keys.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyFutures {
+    private PossiblyFutures() {
+    }
+    /**
+     * Map the value of a future Possibly with an ExceptionFunction when it
+     * completes. An exceptional or empty Possibly is passed through without
+     * calling the function
+     * @param <T> the type of the Possibly
+     * @param <R> the type of the mapped Possibly
+     * @param future the future to map
+     * @param f the function to map the value with
+     * @return a future of the mapped Possibly
+     */
+    public static <T, R> CompletableFuture<Possibly<R>> thenApplyPossibly(
+            CompletableFuture<Possibly<T>> future,
+            PossiblyFunction.ExceptionFunction<T, R> f) {
+        PossiblyFunction<T, R> function = PossiblyFunction.of(f);
+        return recover(future.handle((p, t) -> applyTo(p, t, function)));
+    }
+    /**
+     * Map the value of a future Possibly with an ExceptionFunction on the
+     * executor when it completes. An exceptional or empty Possibly is passed
+     * through without calling the function
+     * @param <T> the type of the Possibly
+     * @param <R> the type of the mapped Possibly
+     * @param future the future to map
+     * @param f the function to map the value with
+     * @param executor the executor to run the function on
+     * @return a future of the mapped Possibly
+     */
+    public static <T, R> CompletableFuture<Possibly<R>> thenApplyPossiblyAsync(
+            CompletableFuture<Possibly<T>> future,
+            PossiblyFunction.ExceptionFunction<T, R> f, Executor executor) {
+        PossiblyFunction<T, R> function = PossiblyFunction.of(f);
+        return recover(future.handleAsync((p, t) -> applyTo(p, t, function), executor));
+    }
+    /**
+     * Complete when all of the futures have completed
+     * @param <T> the type of the Possibly
+     * @param futures the futures to wait for
+     * @return a future of the list of Possibly results in the same order as
+     * the futures
+     */
+    public static <T> CompletableFuture<List<Possibly<T>>> allOf(
+            List<CompletableFuture<Possibly<T>>> futures) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CompletableFuture<Possibly<T>>[] recovered = new CompletableFuture[futures.size()];
+        for(int i = 0; i < recovered.length; i++) {
+            recovered[i] = recover(futures.get(i));
+        }
+        return CompletableFuture.allOf(recovered).thenApply(v -> {
+            List<Possibly<T>> list = new ArrayList<>(recovered.length);
+            for(CompletableFuture<Possibly<T>> future : recovered) {
+                list.add(future.join());
+            }
+            return list;
+        });
+    }
+    /**
+     * Turn a future that might complete exceptionally into one that completes
+     * normally with an exceptional Possibly instead
+     * @param <T> the type of the Possibly
+     * @param future the future to recover
+     * @return a future that is never completed exceptionally
+     */
+    public static <T> CompletableFuture<Possibly<T>> recover(
+            CompletableFuture<Possibly<T>> future) {
+        return future.handle((p, t) -> t == null ? p : Possibly.of(toException(t)));
+    }
+    @SuppressWarnings("unchecked")
+    private static <T, R> Possibly<R> applyTo(Possibly<T> p, Throwable t,
+            PossiblyFunction<T, R> function) {
+        if(t != null) {
+            return Possibly.of(toException(t));
+        }
+        T value = p.valueOrNull();
+        return value == null ? (Possibly<R>)p : function.apply(value);
+    }
+    /**
+     * unwrap the exception a future was completed with
+     * @param t the throwable from the future
+     * @return the underlying exception, or an ExecutionException wrapping an
+     * Error
+     */
+    static Exception toException(Throwable t) {
+        if(t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t instanceof Exception ? (Exception)t : new ExecutionException(t);
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Hedged calls for cutting tail latency. The call is started on an
+ * executor, and if it has not finished after a delay a second attempt is
+ * started alongside it. The first attempt to succeed wins and the other is
+ * cancelled with an interrupt. If an attempt fails the other one is still
+ * waited for, and the result is only a failure if both fail. A call that
+ * fails before the delay is not hedged, hedging is not a retry.
+ *
+ * <pre>PossiblyHedge hedge = PossiblyHedge.ofPercentile(executor, 0.95, Duration.ofMillis(50));
+ * ids.map(PossiblyFunction.of(hedge.wrap(id -&gt; lookup(id))))</pre>
+ *
+ * <p>The delay is either fixed or tracks a percentile of the latency of
+ * the successful attempts, so that only the slowest calls are hedged. The
+ * initial delay is used until a hundred latencies have been seen. The
+ * delays are scheduled on the timer shared with PossiblyTimeout, so a call
+ * that finishes in time costs no extra thread or task. When a delay is up
+ * the hedge is handed to the common pool to be submitted, so an executor
+ * that runs rejected tasks on the caller never runs an attempt on the
+ * timer thread.
+ *
+ * <p>The number of hedges is capped at a ratio of the number of calls, ten
+ * percent by default, plus a burst of ten, so that hedging cannot double
+ * the load on a backend that is already slow.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyHedge {
+    private static final double DEFAULT_BUDGET = 0.1;
+    private static final long BURST = 10;
+    private static final long MIN_SAMPLES = 100;
+    private final ExecutorService executor;
+    private final long initialDelayNanos;
+    private final double percentile;
+    private final double budget;
+    private final LatencyHistogram latencies;
+    private final LongAdder calls = new LongAdder();
+    private final AtomicLong hedges = new AtomicLong();
+    private volatile long percentileDelayNanos = -1;
+
+    private PossiblyHedge(ExecutorService executor, long initialDelayNanos,
+            double percentile, double budget) {
+        this.executor = executor;
+        this.initialDelayNanos = initialDelayNanos;
+        this.percentile = percentile;
+        this.budget = budget;
+        this.latencies = percentile > 0 ? new LatencyHistogram() : null;
+    }
+    /**
+     * used to publicly create a PossiblyHedge with a fixed delay
+     * @param executor the executor to run the attempts on
+     * @param delay how long to wait before starting the second attempt
+     * @return A new PossiblyHedge
+     */
+    static public PossiblyHedge of(final ExecutorService executor, final Duration delay) {
+        if(delay.isNegative())
+            throw new IllegalArgumentException("delay must not be negative");
+        return new PossiblyHedge(executor, delay.toNanos(), 0, DEFAULT_BUDGET);
+    }
+    /**
+     * used to publicly create a PossiblyHedge with a delay that tracks a
+     * percentile of the latency
+     * @param executor the executor to run the attempts on
+     * @param percentile the percentile of the latency to wait, between 0
+     * and 1, such as 0.95
+     * @param initialDelay the delay to use until enough latencies have been
+     * seen
+     * @return A new PossiblyHedge
+     */
+    static public PossiblyHedge ofPercentile(final ExecutorService executor,
+            final double percentile, final Duration initialDelay) {
+        if(!(percentile > 0.0 && percentile < 1.0))
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        if(initialDelay.isNegative())
+            throw new IllegalArgumentException("initial delay must not be negative");
+        return new PossiblyHedge(executor, initialDelay.toNanos(), percentile, DEFAULT_BUDGET);
+    }
+    /**
+     * Set the most hedges as a ratio of the calls. This returns a new
+     * PossiblyHedge, so it should be called before the hedge is used
+     * @param budget the ratio between 0 and 1
+     * @return a new PossiblyHedge
+     */
+    public PossiblyHedge withBudget(double budget) {
+        if(!(budget >= 0.0 && budget <= 1.0))
+            throw new IllegalArgumentException("budget must be between 0 and 1");
+        return new PossiblyHedge(executor, initialDelayNanos, percentile, budget);
+    }
+    /**
+     * Run a supplier with a hedge
+     * @param <T> the type to supply
+     * @param f the supplier to run
+     * @return a future of the first successful attempt, or the failure. The
+     * future is never completed exceptionally
+     */
+    public <T> CompletableFuture<Possibly<T>> getAsync(PossiblySupplier.ExceptionSupplier<T> f) {
+        calls.increment();
+        Hedged<T> hedged = new Hedged<>(PossiblySupplier.of(f));
+        hedged.start();
+        return hedged.result;
+    }
+    /**
+     * Run a function with a hedge
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to run
+     * @param value the value to apply it to
+     * @return a future of the first successful attempt, or the failure. The
+     * future is never completed exceptionally
+     */
+    public <V, R> CompletableFuture<Possibly<R>> applyAsync(PossiblyFunction.ExceptionFunction<V, R> f, V value) {
+        return getAsync(() -> f.apply(value));
+    }
+    /**
+     * Wrap a supplier so that each call is hedged, waiting for the result
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @return the hedged supplier
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f) {
+        return () -> orThrow(await(getAsync(f)));
+    }
+    /**
+     * Wrap a function so that each call is hedged, waiting for the result
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return the hedged function
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f) {
+        return value -> orThrow(await(applyAsync(f, value)));
+    }
+    /**
+     * the number of hedges started since the hedge was created
+     * @return the number of hedges
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+    /**
+     * the delay before a hedge is started
+     * @return the delay in nanoseconds
+     */
+    long delayNanos() {
+        long delay = percentileDelayNanos;
+        return delay < 0 ? initialDelayNanos : delay;
+    }
+    private void record(long nanos) {
+        if(latencies == null) {
+            return;
+        }
+        latencies.record(nanos);
+        if(ThreadLocalRandom.current().nextInt(64) == 0 && latencies.count() >= MIN_SAMPLES) {
+            percentileDelayNanos = latencies.percentile(percentile);
+        }
+    }
+    private boolean tryHedge() {
+        long allowed = (long)(budget * calls.sum()) + BURST;
+        while(true) {
+            long current = hedges.get();
+            if(current >= allowed) {
+                return false;
+            }
+            if(hedges.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    /**
+     * wait for a hedged call, putting the interrupt back if the wait is
+     * interrupted
+     */
+    private static <T> Possibly<T> await(CompletableFuture<Possibly<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Possibly.of(e);
+        } catch (ExecutionException e) {
+            return Possibly.of(PossiblyFutures.toException(e.getCause()));
+        }
+    }
+    private static <T> T orThrow(Possibly<T> p) throws Exception {
+        Exception e = p.exceptionOrNull();
+        if(e != null) {
+            throw e;
+        }
+        return p.valueOrNull();
+    }
+    /**
+     * One hedged call, which is also the timeout that starts the hedge
+     * @param <T> the type to supply
+     */
+    private final class Hedged<T> extends HashedWheelTimer.Timeout {
+        private final PossiblySupplier<T> f;
+        private final CompletableFuture<Possibly<T>> result = new CompletableFuture<>();
+        private final AtomicInteger running = new AtomicInteger(1);
+        private volatile Future<?> primary;
+        private volatile Future<?> hedge;
+        private volatile boolean hedgeWon;
+        private volatile Possibly<T> failure;
+
+        private Hedged(PossiblySupplier<T> f) {
+            this.f = f;
+        }
+        private void start() {
+            HashedWheelTimer.shared().schedule(this, delayNanos());
+            Future<?> p;
+            try {
+                p = executor.submit(() -> attempt(false));
+            } catch (RejectedExecutionException e) {
+                cancel();
+                result.complete(Possibly.of(e));
+                return;
+            }
+            primary = p;
+            // a hedge that won before primary was set could not cancel it
+            if(hedgeWon) {
+                p.cancel(true);
+            }
+        }
+        /**
+         * the delay is up, hand the hedge off so that the timer thread never
+         * runs the executor's submit
+         */
+        @Override
+        void run() {
+            if(running.get() == 0 || result.isDone()) {
+                return;
+            }
+            try {
+                ForkJoinPool.commonPool().execute(this::startHedge);
+            } catch (RejectedExecutionException e) {
+                // the call goes on without a hedge
+            }
+        }
+        /**
+         * start the hedge if the call is still running and the budget
+         * allows
+         */
+        private void startHedge() {
+            int current;
+            do {
+                current = running.get();
+                if(current == 0 || result.isDone()) {
+                    return;
+                }
+            } while(!running.compareAndSet(current, current + 1));
+            if(!tryHedge()) {
+                release();
+                return;
+            }
+            // the primary may have finished while the budget was taken
+            if(result.isDone()) {
+                hedges.decrementAndGet();
+                release();
+                return;
+            }
+            try {
+                hedge = executor.submit(() -> attempt(true));
+            } catch (RejectedExecutionException e) {
+                hedges.decrementAndGet();
+                release();
+            }
+        }
+        /**
+         * run one attempt. An Error from the supplier is a failed attempt,
+         * so the attempt is always released and the result always completes
+         */
+        private void attempt(boolean isHedge) {
+            if(isHedge && result.isDone()) {
+                // the primary finished while the hedge was queued
+                hedges.decrementAndGet();
+                release();
+                return;
+            }
+            long start = System.nanoTime();
+            Possibly<T> p = null;
+            try {
+                p = f.get();
+            } catch (Throwable t) {
+                p = Possibly.of(PossiblyFutures.toException(t));
+            } finally {
+                if(p != null && !p.exceptional()) {
+                    record(System.nanoTime() - start);
+                    if(result.complete(p)) {
+                        cancel();
+                        if(isHedge) {
+                            hedgeWon = true;
+                        }
+                        Future<?> other = isHedge ? primary : hedge;
+                        if(other != null) {
+                            other.cancel(true);
+                        }
+                    }
+                } else {
+                    failure = p;
+                    release();
+                }
+            }
+        }
+        /**
+         * end an attempt, and complete with the failure if it was the last
+         */
+        private void release() {
+            if(running.decrementAndGet() == 0) {
+                cancel();
+                Possibly<T> p = failure;
+                result.complete(p == null
+                        ? Possibly.of(new IllegalStateException("hedged call ended without a result"))
+                        : p);
+            }
+        }
+    }
+}
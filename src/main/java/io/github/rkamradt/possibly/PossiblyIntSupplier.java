@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Supplier;
+
+/**
+ * A replacement for IntSupplier that will return a PossiblyInt to contain a
+ * value or an exception. This will allow using methods that throw a checked
+ * exception to be used in a lambda without boxing the supplied value
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public class PossiblyIntSupplier implements Supplier<PossiblyInt> {
+    /**
+     * Replacement for IntSupplier type except it adds throws Exception to the
+     * getAsInt method. This class wraps this interface to create a PossiblyInt
+     * with a value or an exception
+     */
+    private final ExceptionIntSupplier f;
+    /** 
+     * Create a PossiblyIntSupplier that wraps the ExceptionIntSupplier
+     * @param f the ExceptionIntSupplier to wrap
+     */
+    private PossiblyIntSupplier(final ExceptionIntSupplier f) {
+        this.f = f;
+    }
+    /**
+     * used to publicly create a PossiblyIntSupplier
+     * @param f The wrapped supplier
+     * @return A new PossiblyIntSupplier
+     */
+    static public PossiblyIntSupplier of(final ExceptionIntSupplier f) {
+        return new PossiblyIntSupplier(f);
+    }
+    /** 
+     * Override of the Supplier.get
+     * @return A PossiblyInt with the supplied value or an exception
+     */
+    @Override
+    public PossiblyInt get() {
+        try {
+            return PossiblyInt.of(f.getAsInt());
+        } catch (Exception e) {
+            return PossiblyInt.of(e);
+        }
+    }
+    /**
+     * An IntSupplier that allows checked exceptions
+     */
+    @FunctionalInterface
+    public interface ExceptionIntSupplier {
+        /**
+         * Get a value from the supplier
+         * @return the supplied value
+         * @throws Exception to be caught by the wrapping class
+         */
+        int getAsInt() throws Exception;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * <p>A primitive specialization of Possibly that holds a long value or an
+ * Exception. It is patterned on OptionalLong the same way Possibly is patterned
+ * on Optional, and the value is never boxed on either the success or the
+ * failure path.
+ *
+ * <p>For example the code
+ *
+ * <pre>lines.map(PossiblyToLongFunction.of(s -&gt; parse(s)))</pre>
+ *
+ * will create a
+ *
+ * <pre>Stream&lt;PossiblyLong&gt;</pre>
+ *
+ * where each parsed number is held as a long rather than a Long.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public abstract class PossiblyLong {
+    /**
+     * Singleton instance of an empty PossiblyLong
+     */
+    private static final PossiblyLong EMPTY = new Empty();
+    /**
+     * Only the nested value, exception and empty forms can extend PossiblyLong
+     */
+    private PossiblyLong() {
+    }
+    /**
+     * Create a PossiblyLong that holds a value
+     * @param value The value to create it with
+     * @return a new PossiblyLong with the value
+     */
+    public static PossiblyLong of(long value) {
+        return new Value(value);
+    }
+    /**
+     * Create an exceptional PossiblyLong. this object will never have a value
+     * and the exception cannot be null
+     * @param exception The exception to create it with
+     * @return a new exceptional PossiblyLong
+     */
+    public static PossiblyLong of(Exception exception) {
+        if(exception == null)
+            throw new IllegalArgumentException("exception of PossiblyLong cannot be null");
+        return new Failure(exception);
+    }
+    /**
+     * Return an empty PossiblyLong. this object will never have a value or an
+     * exception
+     * @return an empty PossiblyLong
+     */
+    public static PossiblyLong empty() {
+        return EMPTY;
+    }
+    /**
+     * Predicate function to return if there is a value. Note that this will
+     * return false if the PossiblyLong is empty <i>or</i> if it an exceptional
+     * PossiblyLong
+     * @return true if the value is present otherwise false
+     */
+    public abstract boolean is();
+    /**
+     * Predicate function to return if there is an exception
+     * @return true if there is an exception
+     */
+    public abstract boolean exceptional();
+    /**
+     * Predicate function to check for an empty PossiblyLong (one with no value
+     * and no exception)
+     * @return true if there is no value and no exception
+     */
+    public abstract boolean isEmpty();
+    /**
+     * Perform some action if there is an exception. Can be used for logging
+     * or other actions that produce side-effects
+     * @param action the action to perform
+     * @return this
+     */
+    public PossiblyLong doOnException(Consumer<Exception> action) {
+        return this;
+    }
+    /**
+     * get the value as an OptionalLong
+     * @return the value as OptionalLong or OptionalLong.empty
+     */
+    public OptionalLong getValue() {
+        return OptionalLong.empty();
+    }
+    /**
+     * get a possible exception as an Optional
+     * @return the exception as an Optional or Optional.empty
+     */
+    public Optional<Exception> getException() {
+        return Optional.empty();
+    }
+    /**
+     * get the value without wrapping it
+     * @param other the value to return if there is no value
+     * @return the value or other
+     */
+    public long orElse(long other) {
+        return other;
+    }
+    /**
+     * Map the value if there is one using the mapper function
+     * @param mapper a mapper function
+     * @return a PossiblyLong with the mapped value
+     */
+    public PossiblyLong map(LongUnaryOperator mapper) {
+        return this;
+    }
+    /**
+     * Map the value to an object if there is one using the mapper function
+     * @param <U> The new type of the Possibly
+     * @param mapper a mapper function
+     * @return a Possibly of type U
+     */
+    public abstract <U> Possibly<U> mapToObj(LongFunction<U> mapper);
+    /**
+     * filter base on the predicate function.
+     * @param predicate the predicate function
+     * @return this or an empty PossiblyLong
+     */
+    public PossiblyLong filter(LongPredicate predicate) {
+        return this;
+    }
+    /**
+     * return the value as a LongStream of zero or one item
+     * @return a LongStream of zero or one item
+     */
+    public LongStream stream() {
+        return LongStream.empty();
+    }
+    /**
+     * A PossiblyLong that holds a value
+     */
+    private static final class Value extends PossiblyLong {
+        private final long value;
+
+        private Value(long value) {
+            this.value = value;
+        }
+        @Override
+        public boolean is() {
+            return true;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public OptionalLong getValue() {
+            return OptionalLong.of(value);
+        }
+        @Override
+        public long orElse(long other) {
+            return value;
+        }
+        @Override
+        public PossiblyLong map(LongUnaryOperator mapper) {
+            return new Value(mapper.applyAsLong(value));
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(LongFunction<U> mapper) {
+            return Possibly.ofNullable(mapper.apply(value));
+        }
+        @Override
+        public PossiblyLong filter(LongPredicate predicate) {
+            return predicate.test(value) ? this : EMPTY;
+        }
+        @Override
+        public LongStream stream() {
+            return LongStream.of(value);
+        }
+    }
+    /**
+     * A PossiblyLong that holds an exception
+     */
+    private static final class Failure extends PossiblyLong {
+        private final Exception exception;
+
+        private Failure(Exception exception) {
+            this.exception = exception;
+        }
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return true;
+        }
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+        @Override
+        public PossiblyLong doOnException(Consumer<Exception> action) {
+            action.accept(exception);
+            return this;
+        }
+        @Override
+        public Optional<Exception> getException() {
+            return Optional.of(exception);
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(LongFunction<U> mapper) {
+            return Possibly.of(exception);
+        }
+    }
+    /**
+     * The PossiblyLong with no value and no exception
+     */
+    private static final class Empty extends PossiblyLong {
+        @Override
+        public boolean is() {
+            return false;
+        }
+        @Override
+        public boolean exceptional() {
+            return false;
+        }
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+        @Override
+        public <U> Possibly<U> mapToObj(LongFunction<U> mapper) {
+            return Possibly.empty();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * <p>A columnar buffer of long results. Collecting fifty million
+ * Possibly&lt;Long&gt; into a List keeps a Possibly, a Long and a list slot
+ * for every element; this buffer keeps eight bytes per element in long
+ * arrays that grow in chunks. As in PossiblyBuffer a failure or empty
+ * element is marked in a bitmap and its exception is kept in a sparse side
+ * table.
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyLongBuffer sizes = paths.parallelStream()
+ *         .map(PossiblyFunction.of(p -&gt; Files.size(p)))
+ *         .collect(PossiblyLongBuffer.collector());
+ * long total = sizes.longs().sum();</pre>
+ *
+ * collects the results in order and sums the successful ones without
+ * boxing them.
+ *
+ * <p>A buffer is not thread safe. Parallel streams collect into a buffer
+ * per thread and append them in order.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyLongBuffer extends ChunkedBuffer<long[]> {
+
+    private PossiblyLongBuffer() {
+    }
+    /**
+     * Create an empty buffer
+     * @return a new PossiblyLongBuffer
+     */
+    public static PossiblyLongBuffer of() {
+        return new PossiblyLongBuffer();
+    }
+    /**
+     * A collector of Possibly&lt;Long&gt; into a PossiblyLongBuffer that
+     * keeps the encounter order of the stream
+     * @return the collector
+     */
+    public static Collector<Possibly<Long>, ?, PossiblyLongBuffer> collector() {
+        return Collector.of(PossiblyLongBuffer::new, PossiblyLongBuffer::add, PossiblyLongBuffer::addAll,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+    /**
+     * A collector of PossiblyLong into a PossiblyLongBuffer that keeps the
+     * encounter order of the stream
+     * @return the collector
+     */
+    public static Collector<PossiblyLong, ?, PossiblyLongBuffer> primitiveCollector() {
+        return Collector.of(PossiblyLongBuffer::new, PossiblyLongBuffer::add, PossiblyLongBuffer::addAll,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+    /**
+     * Append a Possibly
+     * @param p the Possibly to append
+     */
+    public void add(Possibly<Long> p) {
+        Long value = p.valueOrNull();
+        if(value != null) {
+            addValue(value);
+        } else {
+            addFailure(p.exceptionOrNull());
+        }
+    }
+    /**
+     * Append a PossiblyLong
+     * @param p the PossiblyLong to append
+     */
+    public void add(PossiblyLong p) {
+        if(p.is()) {
+            addValue(p.orElse(0L));
+        } else {
+            addFailure(p.exceptional() ? p.getException().get() : null);
+        }
+    }
+    /**
+     * Append a value
+     * @param value the value to append
+     */
+    public void addValue(long value) {
+        slot(size)[size & CHUNK_MASK] = value;
+        size++;
+    }
+    /**
+     * Append all of the elements of another buffer after the elements of
+     * this one
+     * @param other the buffer to append
+     * @return this
+     */
+    public PossiblyLongBuffer addAll(PossiblyLongBuffer other) {
+        append(other);
+        return this;
+    }
+    /**
+     * Get a PossiblyLong view of an element
+     * @param index the index of the element
+     * @return a PossiblyLong with the value, the exception or empty
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public PossiblyLong get(int index) {
+        checkIndex(index);
+        if(failures.isMarked(index)) {
+            Exception e = failures.exception(index);
+            return e == null ? PossiblyLong.empty() : PossiblyLong.of(e);
+        }
+        return PossiblyLong.of(chunk(index)[index & CHUNK_MASK]);
+    }
+    /**
+     * Get the value of an element without creating a view of it
+     * @param index the index of the element
+     * @param other the value to return if the element has no value
+     * @return the value or other
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public long orElse(int index, long other) {
+        checkIndex(index);
+        return failures.isMarked(index) ? other : chunk(index)[index & CHUNK_MASK];
+    }
+    /**
+     * Stream PossiblyLong views of all of the elements in order
+     * @return a stream of PossiblyLong
+     */
+    public Stream<PossiblyLong> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+    /**
+     * Stream the values in order, skipping failures and empty elements
+     * @return a stream of the values
+     */
+    public LongStream longs() {
+        return IntStream.range(0, size)
+                .filter(i -> !failures.isMarked(i))
+                .mapToLong(i -> chunk(i)[i & CHUNK_MASK]);
+    }
+    @Override
+    long[] newChunk(int length) {
+        return new long[length];
+    }
+    @Override
+    long[] grow(long[] chunk, int length) {
+        return Arrays.copyOf(chunk, length);
+    }
+    @Override
+    int length(long[] chunk) {
+        return chunk.length;
+    }
+}
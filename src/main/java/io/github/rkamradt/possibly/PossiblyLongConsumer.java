@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A replacement for LongConsumer that will execute a Consumer&lt;Exception&gt;
+ * if it throws an error. This will allow using methods that throw a checked
+ * exception to be used in a LongStream forEach or peek. If the Exception
+ * Consumer throws a unchecked exception, that exception will ripple through
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public class PossiblyLongConsumer implements LongConsumer {
+    /**
+     * Replacement for LongConsumer type except it adds throws Exception to the
+     * accept method.
+     */
+    private final ExceptionLongConsumer f;
+    private final Consumer<Exception> e;
+    /** 
+     * Create a PossiblyLongConsumer that wraps the ExceptionLongConsumer
+     * @param f the ExceptionLongConsumer to wrap
+     * @param e a Consumer to do something with an exception, or null to ignore
+     */
+    private PossiblyLongConsumer(final ExceptionLongConsumer f,
+            final Consumer<Exception> e) {
+        this.f = f;
+        this.e = e;
+    }
+    /**
+     * used to publicly create a PossiblyLongConsumer with a consumer to do
+     * something with any thrown exceptions
+     * @param f The wrapped consumer
+     * @param e a consumer for exceptions
+     * @return A new PossiblyLongConsumer
+     */
+    static public PossiblyLongConsumer of(final ExceptionLongConsumer f,
+            final Consumer<Exception> e) {
+        return new PossiblyLongConsumer(f, e);
+    }
+    /**
+     * used to publicly create a PossiblyLongConsumer that throws away any
+     * exceptions
+     * @param f The wrapped consumer
+     * @return A new PossiblyLongConsumer
+     */
+    static public PossiblyLongConsumer of(final ExceptionLongConsumer f) {
+        return new PossiblyLongConsumer(f, null);
+    }
+    /** 
+     * Override of the LongConsumer.accept
+     * @param value the value to accept
+     */
+    @Override
+    public void accept(long value) {
+        try {
+            f.accept(value);
+        } catch (Exception ex) {
+            if(e != null)
+                e.accept(ex);
+        }
+    }
+    /**
+     * An LongConsumer that allows checked exceptions
+     */
+    @FunctionalInterface
+    public interface ExceptionLongConsumer {
+        /**
+         * accept a value
+         * @param value the value to accept
+         * @throws Exception to be caught by the wrapping class
+         */
+        void accept(long value) throws Exception;
+    }
+}
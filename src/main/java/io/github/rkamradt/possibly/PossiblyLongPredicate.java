@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * A replacement for LongPredicate that will execute a Consumer&lt;Exception&gt;
+ * if it throws an error. This will allow using methods that throw a checked
+ * exception to be used in a LongStream filter. If the Exception Consumer throws
+ * a unchecked exception, that exception will ripple through.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public class PossiblyLongPredicate implements LongPredicate {
+    /**
+     * Replacement for LongPredicate type except it adds throws Exception to the
+     * test method.
+     */
+    private final ExceptionLongPredicate f;
+    private final Consumer<Exception> e;
+    /** 
+     * Create a PossiblyLongPredicate that wraps the ExceptionLongPredicate
+     * @param f the ExceptionLongPredicate to wrap
+     * @param e a Consumer to do something with an exception, or null to ignore
+     */
+    private PossiblyLongPredicate(final ExceptionLongPredicate f,
+            final Consumer<Exception> e) {
+        this.f = f;
+        this.e = e;
+    }
+    /**
+     * used to publicly create a PossiblyLongPredicate
+     * @param f The wrapped predicate
+     * @param e the exception consumer
+     * @return A new PossiblyLongPredicate
+     */
+    static public PossiblyLongPredicate of(final ExceptionLongPredicate f,
+            final Consumer<Exception> e) {
+        return new PossiblyLongPredicate(f, e);
+    }
+    /**
+     * used to publicly create a PossiblyLongPredicate that throws away any
+     * exceptions
+     * @param f The wrapped predicate
+     * @return A new PossiblyLongPredicate
+     */
+    static public PossiblyLongPredicate of(final ExceptionLongPredicate f) {
+        return new PossiblyLongPredicate(f, null);
+    }
+    /** 
+     * Override of the LongPredicate.test
+     * @param value the value to test
+     * @return the result of the test, or false if there was an exception
+     */
+    @Override
+    public boolean test(long value) {
+        try {
+            return f.test(value);
+        } catch (Exception ex) {
+            if(e != null) {
+                e.accept(ex);
+            }
+            return false;
+        }
+    }
+    /**
+     * An LongPredicate that allows checked exceptions
+     */
+    @FunctionalInterface
+    public interface ExceptionLongPredicate {
+        /**
+         * Test a value and return true or false
+         * @param value the value to test
+         * @return the result of the test
+         * @throws Exception to be caught by the wrapping class
+         */
+        boolean test(long value) throws Exception;
+    }
+}
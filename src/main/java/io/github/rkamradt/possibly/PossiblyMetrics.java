@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The invocation count, failure counts by exception class and latency
+ * histogram of the functions wrapped with it. The wrap methods decorate the
+ * exception throwing interfaces, so the metrics work with any of the
+ * Possibly wrappers. Consumers and predicates have their own method names
+ * because a one argument lambda would fit any of them
+ *
+ * <pre>PossiblyMetrics metrics = registry.metrics("users.lookup");
+ * ids.map(PossiblyFunction.of(metrics.wrap(id -&gt; lookup(id))))</pre>
+ *
+ * <p>Counts are kept in LongAdders and the latencies in a lock-free
+ * histogram striped by thread, so threads rarely contend when they record.
+ * Metrics from a disabled registry return the function they are given
+ * unchanged, so there is no cost at all when metrics are turned off.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyMetrics implements PossiblyMetricsMXBean {
+    private final String name;
+    private final boolean enabled;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ConcurrentHashMap<Class<?>, LongAdder> failuresByType = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    PossiblyMetrics(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+    /**
+     * Wrap a function so its calls are recorded
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return the recording function, or f if metrics are disabled
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f) {
+        if(!enabled) {
+            return f;
+        }
+        return value -> {
+            long start = System.nanoTime();
+            try {
+                R result = f.apply(value);
+                record(start, null);
+                return result;
+            } catch (Exception e) {
+                record(start, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Wrap a supplier so its calls are recorded
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @return the recording supplier, or f if metrics are disabled
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f) {
+        if(!enabled) {
+            return f;
+        }
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                T result = f.get();
+                record(start, null);
+                return result;
+            } catch (Exception e) {
+                record(start, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Wrap a consumer so its calls are recorded
+     * @param <T> the type to accept
+     * @param f the consumer to wrap
+     * @return the recording consumer, or f if metrics are disabled
+     */
+    public <T> PossiblyConsumer.ExceptionConsumer<T> wrapConsumer(PossiblyConsumer.ExceptionConsumer<T> f) {
+        if(!enabled) {
+            return f;
+        }
+        return value -> {
+            long start = System.nanoTime();
+            try {
+                f.accept(value);
+                record(start, null);
+            } catch (Exception e) {
+                record(start, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Wrap a predicate so its calls are recorded
+     * @param <T> the type to test
+     * @param f the predicate to wrap
+     * @return the recording predicate, or f if metrics are disabled
+     */
+    public <T> PossiblyPredicate.ExceptionPredicate<T> wrapPredicate(PossiblyPredicate.ExceptionPredicate<T> f) {
+        if(!enabled) {
+            return f;
+        }
+        return value -> {
+            long start = System.nanoTime();
+            try {
+                boolean result = f.test(value);
+                record(start, null);
+                return result;
+            } catch (Exception e) {
+                record(start, e);
+                throw e;
+            }
+        };
+    }
+    /**
+     * Record one call
+     * @param start the nanoTime the call started
+     * @param e the exception the call threw or null
+     */
+    void record(long start, Exception e) {
+        latency.record(System.nanoTime() - start);
+        invocations.increment();
+        if(e != null) {
+            failures.increment();
+            LongAdder count = failuresByType.get(e.getClass());
+            if(count == null) {
+                count = failuresByType.computeIfAbsent(e.getClass(), k -> new LongAdder());
+            }
+            count.increment();
+        }
+    }
+    /**
+     * whether calls are being recorded
+     * @return true if the registry was enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    @Override
+    public String getName() {
+        return name;
+    }
+    @Override
+    public long getInvocations() {
+        return invocations.sum();
+    }
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+    @Override
+    public Map<String, Long> getFailuresByType() {
+        Map<String, Long> map = new TreeMap<>();
+        failuresByType.forEach((type, count) -> map.put(type.getName(), count.sum()));
+        return map;
+    }
+    @Override
+    public long getLatency50thPercentileNanos() {
+        return latency.percentile(0.5);
+    }
+    @Override
+    public long getLatency99thPercentileNanos() {
+        return latency.percentile(0.99);
+    }
+    @Override
+    public long getLatency999thPercentileNanos() {
+        return latency.percentile(0.999);
+    }
+    /**
+     * take a copy of the metrics as they are now
+     * @return a snapshot of the metrics
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(name, getInvocations(), getFailures(),
+                getFailuresByType(), latency.snapshot());
+    }
+    /**
+     * An unchanging copy of the metrics
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long invocations;
+        private final long failures;
+        private final Map<String, Long> failuresByType;
+        private final long[] latencies;
+
+        private Snapshot(String name, long invocations, long failures,
+                Map<String, Long> failuresByType, long[] latencies) {
+            this.name = name;
+            this.invocations = invocations;
+            this.failures = failures;
+            this.failuresByType = Collections.unmodifiableMap(failuresByType);
+            this.latencies = latencies;
+        }
+        /**
+         * the name the metrics are registered under
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+        /**
+         * the number of calls of the wrapped functions
+         * @return the number of calls
+         */
+        public long getInvocations() {
+            return invocations;
+        }
+        /**
+         * the number of calls that threw an exception
+         * @return the number of failures
+         */
+        public long getFailures() {
+            return failures;
+        }
+        /**
+         * the number of failures by exception class name
+         * @return a map of class name to count
+         */
+        public Map<String, Long> getFailuresByType() {
+            return failuresByType;
+        }
+        /**
+         * estimate a percentile of the latencies. The estimate is the top of
+         * the histogram bucket, which is within a quarter of the real value
+         * @param percentile the percentile between 0 and 1
+         * @return the latency in nanoseconds
+         */
+        public long getLatencyPercentileNanos(double percentile) {
+            return LatencyHistogram.percentile(latencies, percentile);
+        }
+        @Override
+        public String toString() {
+            return name + ": " + invocations + " calls, " + failures + " failures "
+                    + failuresByType + ", p50 " + getLatencyPercentileNanos(0.5)
+                    + "ns, p99 " + getLatencyPercentileNanos(0.99) + "ns";
+        }
+    }
+}
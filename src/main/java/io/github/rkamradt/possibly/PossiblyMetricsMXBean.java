@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a PossiblyMetrics, registered by
+ * PossiblyMetricsRegistry.registerMBeans
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public interface PossiblyMetricsMXBean {
+    /**
+     * the name the metrics are registered under
+     * @return the name
+     */
+    String getName();
+    /**
+     * the number of calls of the wrapped functions
+     * @return the number of calls
+     */
+    long getInvocations();
+    /**
+     * the number of calls that threw an exception
+     * @return the number of failures
+     */
+    long getFailures();
+    /**
+     * the number of failures by exception class name
+     * @return a map of class name to count
+     */
+    Map<String, Long> getFailuresByType();
+    /**
+     * the median latency of the calls
+     * @return the latency in nanoseconds
+     */
+    long getLatency50thPercentileNanos();
+    /**
+     * the 99th percentile latency of the calls
+     * @return the latency in nanoseconds
+     */
+    long getLatency99thPercentileNanos();
+    /**
+     * the 99.9th percentile latency of the calls
+     * @return the latency in nanoseconds
+     */
+    long getLatency999thPercentileNanos();
+}
@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>A registry of named PossiblyMetrics. Metrics are opt in, a function is
+ * only measured if it is wrapped with the metrics from a registry
+ *
+ * <pre>PossiblyMetricsRegistry registry = PossiblyMetricsRegistry.enabled();
+ * ids.map(PossiblyFunction.of(registry.metrics("users.lookup").wrap(id -&gt; lookup(id))))</pre>
+ *
+ * <p>A disabled registry hands out metrics that do not wrap anything, so the
+ * same code can run with metrics turned off at no cost. The metrics can be
+ * read with getSnapshots, or published as MXBeans with registerMBeans and
+ * taken down again with unregisterMBeans. A name can only be published by
+ * one registry at a time, registering a name that another registry has
+ * published fails with an InstanceAlreadyExistsException.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyMetricsRegistry {
+    /**
+     * the JMX domain the MXBeans are registered under
+     */
+    public static final String JMX_DOMAIN = "io.github.rkamradt.possibly";
+    private static final PossiblyMetricsRegistry DISABLED = new PossiblyMetricsRegistry(false);
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, PossiblyMetrics> metrics = new ConcurrentHashMap<>();
+    private MBeanServer server;
+    private final Set<String> registered = new HashSet<>();
+
+    private PossiblyMetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+    /**
+     * Create a registry that records metrics
+     * @return a new registry
+     */
+    public static PossiblyMetricsRegistry enabled() {
+        return new PossiblyMetricsRegistry(true);
+    }
+    /**
+     * Get the registry that records nothing
+     * @return the disabled registry
+     */
+    public static PossiblyMetricsRegistry disabled() {
+        return DISABLED;
+    }
+    /**
+     * get the metrics for a name, creating them the first time
+     * @param name the name of the metrics
+     * @return the metrics for the name
+     */
+    public PossiblyMetrics metrics(String name) {
+        PossiblyMetrics m = metrics.get(name);
+        if(m != null) {
+            return m;
+        }
+        return metrics.computeIfAbsent(name, n -> {
+            PossiblyMetrics created = new PossiblyMetrics(n, enabled);
+            synchronized(this) {
+                if(server != null) {
+                    try {
+                        register(created);
+                    } catch (JMException e) {
+                        throw new IllegalStateException("could not register metrics " + n, e);
+                    }
+                }
+            }
+            return created;
+        });
+    }
+    /**
+     * take a snapshot of all of the metrics
+     * @return a list of snapshots
+     */
+    public List<PossiblyMetrics.Snapshot> getSnapshots() {
+        List<PossiblyMetrics.Snapshot> snapshots = new ArrayList<>();
+        metrics.values().forEach(m -> snapshots.add(m.getSnapshot()));
+        return snapshots;
+    }
+    /**
+     * Register all of the metrics, and any created later, as MXBeans with
+     * the platform MBean server. Does nothing for a disabled registry. If
+     * one cannot be registered, such as a name another registry has
+     * already registered, the ones registered so far are unregistered
+     * @throws JMException if an MXBean cannot be registered
+     */
+    public synchronized void registerMBeans() throws JMException {
+        if(!enabled || server != null) {
+            return;
+        }
+        server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for(PossiblyMetrics m : metrics.values()) {
+                register(m);
+            }
+        } catch (JMException | RuntimeException e) {
+            unregisterMBeans();
+            throw e;
+        }
+    }
+    /**
+     * Unregister the MXBeans registered by registerMBeans. Metrics created
+     * after this are not registered until registerMBeans is called again
+     * @throws JMException if an MXBean cannot be unregistered
+     */
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer s = server;
+        if(s == null) {
+            return;
+        }
+        server = null;
+        for(String name : registered) {
+            try {
+                s.unregisterMBean(objectName(name));
+            } catch (InstanceNotFoundException e) {
+                // already unregistered by someone else
+            }
+        }
+        registered.clear();
+    }
+    /**
+     * the name an MXBean is registered under
+     * @param name the name of the metrics
+     * @return the JMX object name
+     * @throws JMException if the name is not valid
+     */
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=PossiblyMetrics,name=" + ObjectName.quote(name));
+    }
+    /**
+     * register an MXBean, holding the lock so that registerMBeans and
+     * metrics never both register the same name
+     */
+    private void register(PossiblyMetrics m) throws JMException {
+        if(!registered.contains(m.getName())) {
+            server.registerMBean(m, objectName(m.getName()));
+            registered.add(m.getName());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * <p>An exception handler for PossiblyConsumer and PossiblyPredicate that
+ * passes at most a fixed number of exceptions per interval on to the handler
+ * it wraps. The rest are counted by exception class, and when the interval
+ * ends a summary line for each class is sent to a summary consumer:
+ *
+ * <pre>12,431 java.io.IOException suppressed in last 10s</pre>
+ *
+ * <p>For example the code
+ *
+ * <pre>PossiblyConsumer.of(v -&gt; send(v), PossiblyRateLimitedHandler.of(
+ *         e -&gt; log.warn("send failed", e), 10, Duration.ofSeconds(10),
+ *         s -&gt; log.warn(s)))</pre>
+ *
+ * will log at most ten failures every ten seconds during an outage.
+ *
+ * <p>The handler never locks. The interval is a window object swapped in
+ * with a compare and set, and the thread that swaps it sends the summary.
+ * The first suppressed exception of a window schedules it on the shared
+ * timer, so the summary is sent when the window ends even if no failure
+ * follows. In that case the timer only hands the summary off to an
+ * executor, the common pool unless one is given, so a slow summary consumer
+ * never holds up the timer. A window with nothing suppressed schedules
+ * nothing. Suppressed exceptions are counted with
+ * LongAdders. A failure that races the rollover may be counted in the window
+ * that has already been summarized and so not reported. Close the handler,
+ * or call flush, to send the summary of the current window at shutdown.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyRateLimitedHandler implements Consumer<Exception>, AutoCloseable {
+    private final Consumer<Exception> delegate;
+    private final int permits;
+    private final long intervalNanos;
+    private final Consumer<String> summary;
+    private final Executor executor;
+    private final AtomicReference<Window> window;
+    private final LongAdder suppressed = new LongAdder();
+
+    private PossiblyRateLimitedHandler(Consumer<Exception> delegate, int permits,
+            long intervalNanos, Consumer<String> summary, Executor executor) {
+        this.delegate = delegate;
+        this.permits = permits;
+        this.intervalNanos = intervalNanos;
+        this.summary = summary;
+        this.executor = executor;
+        this.window = new AtomicReference<>(new Window(System.nanoTime()));
+    }
+    /**
+     * used to publicly create a PossiblyRateLimitedHandler
+     * @param delegate the handler to pass exceptions on to
+     * @param permits the number of exceptions to pass on per interval
+     * @param interval the length of the interval
+     * @param summary a consumer for the summary of the suppressed exceptions
+     * @return A new PossiblyRateLimitedHandler
+     */
+    static public PossiblyRateLimitedHandler of(final Consumer<Exception> delegate,
+            final int permits, final Duration interval, final Consumer<String> summary) {
+        return of(delegate, permits, interval, summary, ForkJoinPool.commonPool());
+    }
+    /**
+     * used to publicly create a PossiblyRateLimitedHandler that sends the
+     * summary of a window that ends with no further failures on an executor
+     * @param delegate the handler to pass exceptions on to
+     * @param permits the number of exceptions to pass on per interval
+     * @param interval the length of the interval
+     * @param summary a consumer for the summary of the suppressed exceptions
+     * @param executor the executor to send the summary on when a window ends
+     * @return A new PossiblyRateLimitedHandler
+     */
+    static public PossiblyRateLimitedHandler of(final Consumer<Exception> delegate,
+            final int permits, final Duration interval, final Consumer<String> summary,
+            final Executor executor) {
+        if(permits < 0)
+            throw new IllegalArgumentException("permits must not be negative");
+        if(interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("interval must be positive");
+        return new PossiblyRateLimitedHandler(delegate, permits, interval.toNanos(), summary, executor);
+    }
+    /**
+     * Override of the Consumer.accept
+     * @param exception the exception to handle or suppress
+     */
+    @Override
+    public void accept(Exception exception) {
+        long now = System.nanoTime();
+        Window w = window.get();
+        if(now - w.start >= intervalNanos) {
+            rollover(w, now);
+            w = window.get();
+        }
+        if(w.passed.get() < permits && w.passed.incrementAndGet() <= permits) {
+            delegate.accept(exception);
+            return;
+        }
+        suppressed.increment();
+        LongAdder count = w.suppressed.get(exception.getClass());
+        if(count == null) {
+            count = w.suppressed.computeIfAbsent(exception.getClass(), k -> new LongAdder());
+        }
+        count.increment();
+        if(!w.scheduled.get() && w.scheduled.compareAndSet(false, true)) {
+            HashedWheelTimer.shared().schedule(w, w.start + intervalNanos - now);
+        }
+    }
+    /**
+     * Start a new interval now and send the summary of the current one
+     */
+    public void flush() {
+        long now = System.nanoTime();
+        summarize(window.getAndSet(new Window(now)), now);
+    }
+    /**
+     * Override of the AutoCloseable.close, sends the summary of the current
+     * window
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+    /**
+     * the total number of exceptions suppressed since the handler was created
+     * @return the number of suppressed exceptions
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+    /**
+     * Start a new interval and send the summary of the old one, unless
+     * another thread has already done so
+     */
+    private void rollover(Window w, long now) {
+        if(window.compareAndSet(w, new Window(now))) {
+            summarize(w, now);
+        }
+    }
+    private void summarize(Window w, long now) {
+        if(w.suppressed.isEmpty()) {
+            return;
+        }
+        long elapsed = now - w.start;
+        String last = elapsed >= 1_000_000_000L
+                ? Duration.ofNanos(elapsed).getSeconds() + "s"
+                : Duration.ofNanos(elapsed).toMillis() + "ms";
+        w.suppressed.forEach((type, count) -> summary.accept(String.format(
+                "%,d %s suppressed in last %s", count.sum(), type.getName(), last)));
+    }
+    /**
+     * One interval, with the number of exceptions passed on and the counts of
+     * those suppressed. It fires at the end of the interval if anything was
+     * suppressed and hands the rollover to the executor, which does nothing
+     * if the window has already been replaced. If the executor rejects it
+     * the summary is sent by the next failure or by flush
+     */
+    private final class Window extends HashedWheelTimer.Timeout {
+        private final long start;
+        private final AtomicInteger passed = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ConcurrentHashMap<Class<?>, LongAdder> suppressed = new ConcurrentHashMap<>();
+
+        private Window(long start) {
+            this.start = start;
+        }
+        @Override
+        void run() {
+            try {
+                executor.execute(() -> rollover(this, System.nanoTime()));
+            } catch (RejectedExecutionException e) {
+                // left for the next failure or flush
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Read the records of a file as a Stream&lt;Possibly&lt;T&gt;&gt;. The file
+ * is memory mapped a window at a time and each record is handed to the
+ * parser as a read-only ByteBuffer view of the mapping, so no bytes are
+ * copied. A record that fails to parse, or that the parser returns null for,
+ * becomes an exceptional Possibly holding a RecordException with the file
+ * offset of the record.
+ *
+ * <pre>try(Stream&lt;Possibly&lt;Order&gt;&gt; orders = PossiblyRecordSource.lines(path, b -&gt; Order.parse(b))) {
+ *     PossiblyCollectors.Partition&lt;Order&gt; partition = orders.parallel()
+ *             .collect(PossiblyCollectors.partitioning());
+ * }</pre>
+ *
+ * <p>The stream is finite and splits on record boundaries, so it can be run
+ * in parallel. Line files split by scanning forward from the middle to the
+ * next newline. Length-prefixed files have no markers to scan for, so they
+ * split by walking the record headers from the start of the range to the
+ * middle, which reads four bytes a record. The stream must be closed to
+ * close the file.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyRecordSource {
+    /**
+     * the size of the mapped window, a record longer than this gets a window
+     * of its own
+     */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    /**
+     * the smallest range of the file that is split for parallel streams
+     */
+    static final long MIN_SPLIT = 64 * 1024;
+
+    private PossiblyRecordSource() {
+    }
+    /**
+     * Read a file of newline terminated records. The newline, and a carriage
+     * return before it, are not part of the record
+     * @param <T> the type of the parsed records
+     * @param path the file to read
+     * @param parser the function to parse a record
+     * @return a stream of the parsed records
+     * @throws IOException if the file cannot be opened
+     */
+    static public <T> Stream<Possibly<T>> lines(final Path path,
+            final PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser) throws IOException {
+        return lines(path, parser, WINDOW_SIZE);
+    }
+    /**
+     * Read a file of records that each start with a four byte big-endian
+     * length. A length that does not fit in the file ends the stream with an
+     * exceptional Possibly, since the records after it cannot be found
+     * @param <T> the type of the parsed records
+     * @param path the file to read
+     * @param parser the function to parse a record
+     * @return a stream of the parsed records
+     * @throws IOException if the file cannot be opened
+     */
+    static public <T> Stream<Possibly<T>> lengthPrefixed(final Path path,
+            final PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser) throws IOException {
+        return lengthPrefixed(path, parser, WINDOW_SIZE);
+    }
+    static <T> Stream<Possibly<T>> lines(Path path,
+            PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser, int windowSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return stream(new LineSpliterator<>(channel, channel.size(), windowSize, parser,
+                    0, channel.size()), channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    static <T> Stream<Possibly<T>> lengthPrefixed(Path path,
+            PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser, int windowSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return stream(new LengthPrefixedSpliterator<>(channel, channel.size(), windowSize, parser,
+                    0, channel.size()), channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    private static <T> Stream<Possibly<T>> stream(Spliterator<Possibly<T>> spliterator,
+            FileChannel channel) {
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    /**
+     * The exception for a record that could not be read or parsed
+     */
+    public static final class RecordException extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final long offset;
+
+        private RecordException(long offset, Exception cause) {
+            super("record at offset " + offset + ": " + cause.getMessage(), cause);
+            this.offset = offset;
+        }
+        /**
+         * the offset in the file where the record starts
+         * @return the file offset
+         */
+        public long getOffset() {
+            return offset;
+        }
+    }
+    /**
+     * A spliterator over a range of the file that keeps one mapped window
+     * @param <T> the type of the parsed records
+     */
+    private static abstract class RecordSpliterator<T> implements Spliterator<Possibly<T>> {
+        final FileChannel channel;
+        final long size;
+        final int windowSize;
+        final PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser;
+        final long end;
+        long position;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long windowEnd;
+
+        RecordSpliterator(FileChannel channel, long size, int windowSize,
+                PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser, long position, long end) {
+            this.channel = channel;
+            this.size = size;
+            this.windowSize = windowSize;
+            this.parser = parser;
+            this.position = position;
+            this.end = end;
+        }
+        /**
+         * find the start of the first record at or after an offset
+         * @param offset the offset to look from
+         * @return the start of a record, or -1 if there is none before the
+         * end of the range
+         * @throws IOException if the file cannot be mapped
+         */
+        abstract long recordAfter(long offset) throws IOException;
+        /**
+         * create a spliterator for part of the range
+         * @param position the start of the part
+         * @param end the end of the part
+         * @return a new spliterator
+         */
+        abstract RecordSpliterator<T> create(long position, long end);
+
+        @Override
+        public Spliterator<Possibly<T>> trySplit() {
+            long remaining = end - position;
+            if(remaining < MIN_SPLIT) {
+                return null;
+            }
+            long boundary;
+            try {
+                boundary = recordAfter(position + remaining / 2);
+            } catch (IOException e) {
+                return null;
+            }
+            if(boundary <= position || boundary >= end) {
+                return null;
+            }
+            RecordSpliterator<T> prefix = create(position, boundary);
+            position = boundary;
+            return prefix;
+        }
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+        /**
+         * parse a record and wrap the result
+         * @param offset the offset of the record
+         * @param record the bytes of the record
+         * @return a Possibly of the parsed record
+         */
+        Possibly<T> parse(long offset, ByteBuffer record) {
+            try {
+                return Possibly.of(parser.apply(record));
+            } catch (Exception e) {
+                return Possibly.of(new RecordException(offset, e));
+            }
+        }
+        /**
+         * the failure for a record that could not be read. The rest of the
+         * range is skipped
+         * @param offset the offset of the record
+         * @param e the exception
+         * @return an exceptional Possibly
+         */
+        Possibly<T> fail(long offset, Exception e) {
+            position = end;
+            return Possibly.of(new RecordException(offset, e));
+        }
+        /**
+         * map a window that holds part of the file, unless the current
+         * window holds it
+         * @param offset the offset of the part
+         * @param length the length of the part
+         * @return the index of the offset in the window
+         * @throws IOException if the file cannot be mapped
+         */
+        int map(long offset, int length) throws IOException {
+            if(window == null || offset < windowStart || offset + length > windowEnd) {
+                long mapSize = Math.min(Math.max(windowSize, length), size - offset);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, offset, mapSize);
+                windowStart = offset;
+                windowEnd = offset + mapSize;
+            }
+            return (int)(offset - windowStart);
+        }
+        /**
+         * a read-only view of part of the file
+         * @param offset the offset of the part
+         * @param length the length of the part
+         * @return a view of the mapped bytes
+         * @throws IOException if the file cannot be mapped
+         */
+        ByteBuffer slice(long offset, int length) throws IOException {
+            int index = map(offset, length);
+            ByteBuffer view = window.duplicate();
+            ((Buffer)view).limit(index + length);
+            ((Buffer)view).position(index);
+            return view.slice();
+        }
+        byte byteAt(long offset) throws IOException {
+            int index = map(offset, 1);
+            return window.get(index);
+        }
+        int intAt(long offset) throws IOException {
+            int index = map(offset, 4);
+            return window.getInt(index);
+        }
+        /**
+         * find a byte, scanning the current window before mapping the next
+         * @param b the byte to find
+         * @param from the offset to start looking
+         * @param to the offset to stop looking
+         * @return the offset of the byte or -1
+         * @throws IOException if the file cannot be mapped
+         */
+        long indexOf(byte b, long from, long to) throws IOException {
+            long offset = from;
+            while(offset < to) {
+                if(window == null || offset < windowStart || offset >= windowEnd) {
+                    map(offset, (int)Math.min(windowSize, to - offset));
+                }
+                long stop = Math.min(to, windowEnd);
+                int index = (int)(offset - windowStart);
+                for(; offset < stop; offset++, index++) {
+                    if(window.get(index) == b) {
+                        return offset;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+    /**
+     * The spliterator for newline terminated records
+     * @param <T> the type of the parsed records
+     */
+    private static final class LineSpliterator<T> extends RecordSpliterator<T> {
+        LineSpliterator(FileChannel channel, long size, int windowSize,
+                PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser, long position, long end) {
+            super(channel, size, windowSize, parser, position, end);
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super Possibly<T>> action) {
+            if(position >= end) {
+                return false;
+            }
+            long start = position;
+            try {
+                long newline = indexOf((byte)'\n', start, end);
+                long stop = newline < 0 ? end : newline;
+                long length = stop - start;
+                if(length > 0 && byteAt(stop - 1) == '\r') {
+                    length--;
+                }
+                if(length > Integer.MAX_VALUE) {
+                    action.accept(fail(start, new IOException("record is longer than " + Integer.MAX_VALUE)));
+                    return true;
+                }
+                position = newline < 0 ? end : newline + 1;
+                action.accept(parse(start, slice(start, (int)length)));
+            } catch (IOException e) {
+                action.accept(fail(start, e));
+            }
+            return true;
+        }
+        @Override
+        long recordAfter(long offset) throws IOException {
+            long newline = indexOf((byte)'\n', offset - 1, end);
+            return newline < 0 ? -1 : newline + 1;
+        }
+        @Override
+        RecordSpliterator<T> create(long position, long end) {
+            return new LineSpliterator<>(channel, size, windowSize, parser, position, end);
+        }
+    }
+    /**
+     * The spliterator for records with a four byte length prefix
+     * @param <T> the type of the parsed records
+     */
+    private static final class LengthPrefixedSpliterator<T> extends RecordSpliterator<T> {
+        LengthPrefixedSpliterator(FileChannel channel, long size, int windowSize,
+                PossiblyFunction.ExceptionFunction<ByteBuffer, T> parser, long position, long end) {
+            super(channel, size, windowSize, parser, position, end);
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super Possibly<T>> action) {
+            if(position >= end) {
+                return false;
+            }
+            long start = position;
+            try {
+                int length = length(start);
+                if(length < 0) {
+                    action.accept(fail(start, new IOException("bad record length")));
+                    return true;
+                }
+                position = start + 4 + length;
+                action.accept(parse(start, slice(start + 4, length)));
+            } catch (IOException e) {
+                action.accept(fail(start, e));
+            }
+            return true;
+        }
+        @Override
+        long recordAfter(long offset) throws IOException {
+            long record = position;
+            while(record < offset) {
+                int length = length(record);
+                if(length < 0) {
+                    return -1;
+                }
+                record += 4 + length;
+            }
+            return record < end ? record : -1;
+        }
+        /**
+         * read the length of a record
+         * @param record the offset of the record
+         * @return the length, or -1 if it does not fit in the range
+         * @throws IOException if the file cannot be mapped
+         */
+        private int length(long record) throws IOException {
+            if(end - record < 4) {
+                return -1;
+            }
+            int length = intAt(record);
+            return length < 0 || length > end - record - 4 ? -1 : length;
+        }
+        @Override
+        RecordSpliterator<T> create(long position, long end) {
+            return new LengthPrefixedSpliterator<>(channel, size, windowSize, parser, position, end);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * <p>A retry policy for an ExceptionSupplier or ExceptionFunction. A call is
+ * retried while it throws an exception that the policy accepts, up to the
+ * maximum number of attempts, with an exponential backoff between attempts.
+ * The backoff is randomly shortened by the jitter so that many callers that
+ * failed together do not all retry together.
+ *
+ * <p>A policy is immutable, the with methods return a new policy. For example
+ * the code
+ *
+ * <pre>PossiblyRetry retry = PossiblyRetry.of(5)
+ *         .withBackoff(Duration.ofMillis(50), Duration.ofSeconds(2))
+ *         .retryOn(e -&gt; e instanceof IOException);
+ * Stream.generate(PossiblySupplier.of(retry.wrap(() -&gt; fetch())))</pre>
+ *
+ * will retry fetch up to four more times if it throws an IOException.
+ *
+ * <p>The synchronous methods sleep on the calling thread between attempts.
+ * The asynchronous methods run each attempt on a ScheduledExecutorService
+ * and schedule the next one after the backoff, so no thread waits.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyRetry {
+    private static final long DEFAULT_INITIAL_BACKOFF = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long DEFAULT_MAX_BACKOFF = TimeUnit.SECONDS.toNanos(10);
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final Predicate<Exception> retryOn;
+
+    private PossiblyRetry(int maxAttempts, long initialBackoffNanos,
+            long maxBackoffNanos, double multiplier, double jitter,
+            Predicate<Exception> retryOn) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryOn = retryOn;
+    }
+    /**
+     * Create a retry policy that retries any exception, starting with a
+     * 100ms backoff that doubles up to 10s with a jitter of 0.5
+     * @param maxAttempts the most times to call, including the first call
+     * @return a new retry policy
+     */
+    public static PossiblyRetry of(int maxAttempts) {
+        if(maxAttempts < 1)
+            throw new IllegalArgumentException("max attempts must be at least 1");
+        return new PossiblyRetry(maxAttempts, DEFAULT_INITIAL_BACKOFF,
+                DEFAULT_MAX_BACKOFF, 2.0, 0.5, e -> true);
+    }
+    /**
+     * Set the backoff before the first retry and the most it can grow to
+     * @param initial the backoff before the first retry
+     * @param max the largest backoff
+     * @return a new retry policy
+     */
+    public PossiblyRetry withBackoff(Duration initial, Duration max) {
+        if(initial.isNegative() || max.compareTo(initial) < 0)
+            throw new IllegalArgumentException("backoff must not be negative and max must not be less than initial");
+        return new PossiblyRetry(maxAttempts, initial.toNanos(), max.toNanos(),
+                multiplier, jitter, retryOn);
+    }
+    /**
+     * Set how much the backoff grows after each retry
+     * @param multiplier the growth factor, at least 1
+     * @return a new retry policy
+     */
+    public PossiblyRetry withMultiplier(double multiplier) {
+        if(!(multiplier >= 1.0))
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        return new PossiblyRetry(maxAttempts, initialBackoffNanos,
+                maxBackoffNanos, multiplier, jitter, retryOn);
+    }
+    /**
+     * Set the jitter. Each backoff is shortened by a random fraction of
+     * itself between 0 and the jitter, so 0 is no jitter and 1 is a backoff
+     * anywhere from 0 up to the full amount
+     * @param jitter the jitter between 0 and 1
+     * @return a new retry policy
+     */
+    public PossiblyRetry withJitter(double jitter) {
+        if(!(jitter >= 0.0 && jitter <= 1.0))
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        return new PossiblyRetry(maxAttempts, initialBackoffNanos,
+                maxBackoffNanos, multiplier, jitter, retryOn);
+    }
+    /**
+     * Set which exceptions are retried. Any other exception is returned
+     * after the attempt that threw it. An InterruptedException is never
+     * retried and is returned at once. On the calling thread the interrupt
+     * is restored, a scheduler thread is left alone
+     * @param retryOn a predicate that is true for exceptions to retry
+     * @return a new retry policy
+     */
+    public PossiblyRetry retryOn(Predicate<Exception> retryOn) {
+        return new PossiblyRetry(maxAttempts, initialBackoffNanos,
+                maxBackoffNanos, multiplier, jitter, retryOn);
+    }
+    /**
+     * Call the supplier with retries on the calling thread
+     * @param <T> the type to supply
+     * @param f the supplier to call
+     * @return the result of the last attempt and the number of attempts
+     */
+    public <T> Result<T> get(PossiblySupplier.ExceptionSupplier<T> f) {
+        PossiblySupplier<T> supplier = PossiblySupplier.of(f);
+        int attempt = 1;
+        Possibly<T> p = supplier.get();
+        while(retry(p, attempt)) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff(attempt));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            attempt++;
+            p = supplier.get();
+        }
+        if(p.exceptionOrNull() instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        return new Result<>(p, attempt);
+    }
+    /**
+     * Call the function with retries on the calling thread
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to call
+     * @param value the value to call it with
+     * @return the result of the last attempt and the number of attempts
+     */
+    public <V, R> Result<R> apply(PossiblyFunction.ExceptionFunction<V, R> f, V value) {
+        return get(() -> f.apply(value));
+    }
+    /**
+     * Wrap a supplier so that each call is retried on the calling thread. The
+     * wrapped supplier throws the exception from the last attempt
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @return a supplier that retries
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f) {
+        return () -> get(f).orThrow();
+    }
+    /**
+     * Wrap a function so that each call is retried on the calling thread. The
+     * wrapped function throws the exception from the last attempt
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @return a function that retries
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f) {
+        return value -> apply(f, value).orThrow();
+    }
+    /**
+     * Call the supplier with retries on the scheduler
+     * @param <T> the type to supply
+     * @param f the supplier to call
+     * @param scheduler runs each attempt and waits out the backoff
+     * @return a future of the result of the last attempt and the number of
+     * attempts. The future is only completed exceptionally if an attempt
+     * throws an Error or the retryOn predicate throws
+     */
+    public <T> CompletableFuture<Result<T>> getAsync(PossiblySupplier.ExceptionSupplier<T> f,
+            ScheduledExecutorService scheduler) {
+        CompletableFuture<Result<T>> result = new CompletableFuture<>();
+        PossiblySupplier<T> supplier = PossiblySupplier.of(f);
+        try {
+            scheduler.execute(() -> attempt(supplier, 1, scheduler, result));
+        } catch (RejectedExecutionException e) {
+            result.complete(new Result<>(Possibly.of(e), 0));
+        }
+        return result;
+    }
+    /**
+     * Call the function with retries on the scheduler
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to call
+     * @param value the value to call it with
+     * @param scheduler runs each attempt and waits out the backoff
+     * @return a future of the result of the last attempt and the number of
+     * attempts. The future is only completed exceptionally if an attempt
+     * throws an Error or the retryOn predicate throws
+     */
+    public <V, R> CompletableFuture<Result<R>> applyAsync(PossiblyFunction.ExceptionFunction<V, R> f,
+            V value, ScheduledExecutorService scheduler) {
+        return getAsync(() -> f.apply(value), scheduler);
+    }
+    private <T> void attempt(PossiblySupplier<T> supplier, int attempt,
+            ScheduledExecutorService scheduler, CompletableFuture<Result<T>> result) {
+        try {
+            Possibly<T> p = supplier.get();
+            if(retry(p, attempt)) {
+                try {
+                    scheduler.schedule(() -> attempt(supplier, attempt + 1, scheduler, result),
+                            backoff(attempt), TimeUnit.NANOSECONDS);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the scheduler is shutting down, return the last attempt
+                }
+            }
+            result.complete(new Result<>(p, attempt));
+        } catch (Throwable t) {
+            // otherwise the future would never complete
+            result.completeExceptionally(t);
+            throw t;
+        }
+    }
+    private boolean retry(Possibly<?> p, int attempt) {
+        Exception e = p.exceptionOrNull();
+        return e != null && !(e instanceof InterruptedException)
+                && attempt < maxAttempts && retryOn.test(e);
+    }
+    /**
+     * The backoff after an attempt
+     * @param attempt the attempt that failed, starting at 1
+     * @return the backoff in nanoseconds
+     */
+    long backoff(int attempt) {
+        double base = Math.min(maxBackoffNanos,
+                initialBackoffNanos * Math.pow(multiplier, attempt - 1));
+        return (long)(base - base * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+    /**
+     * The result of the last attempt and the number of attempts it took
+     * @param <T> the type of the result
+     */
+    public static final class Result<T> {
+        private final Possibly<T> possibly;
+        private final int attempts;
+
+        private Result(Possibly<T> possibly, int attempts) {
+            this.possibly = possibly;
+            this.attempts = attempts;
+        }
+        /**
+         * the result of the last attempt
+         * @return a Possibly with the value or the last exception
+         */
+        public Possibly<T> getPossibly() {
+            return possibly;
+        }
+        /**
+         * the number of attempts, including the first
+         * @return the number of attempts
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+        private T orThrow() throws Exception {
+            Exception e = possibly.exceptionOrNull();
+            if(e != null) {
+                throw e;
+            }
+            return possibly.valueOrNull();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * <p>A version of PossiblyFunction that coalesces concurrent calls for equal
+ * keys. The first caller for a key runs the function, and every caller that
+ * arrives while it is running waits for the same execution and gets the same
+ * Possibly, whether it holds a value or an exception. Once the call finishes
+ * the next caller for the key runs the function again, nothing is cached.
+ *
+ * <pre>PossiblySingleFlight&lt;String, User&gt; users = PossiblySingleFlight.of(id -&gt; lookup(id));
+ * Possibly&lt;User&gt; user = users.apply(id);</pre>
+ *
+ * <p>apply runs the function on the thread of the first caller and blocks
+ * the others, applyAsync runs it on an executor and blocks no one. The calls
+ * in flight are kept in a ConcurrentHashMap, so callers for different keys
+ * never wait on each other. A null key is not coalesced.
+ *
+ * @author randal kamradt
+ * @param <V> the type of the key
+ * @param <R> the type to return
+ * @since 1.0.2
+ */
+public final class PossiblySingleFlight<V, R> implements Function<V, Possibly<R>> {
+    private final PossiblyFunction<V, R> f;
+    private final ConcurrentHashMap<V, CompletableFuture<Possibly<R>>> inFlight = new ConcurrentHashMap<>();
+
+    private PossiblySingleFlight(PossiblyFunction.ExceptionFunction<V, R> f) {
+        this.f = PossiblyFunction.of(f);
+    }
+    /**
+     * used to publicly create a PossiblySingleFlight
+     * @param <V> The type of the key
+     * @param <R> The type of value to return that will be wrapped in a Possibly
+     * @param f The wrapped function
+     * @return A new PossiblySingleFlight
+     */
+    static public <V, R> PossiblySingleFlight<V, R> of(final PossiblyFunction.ExceptionFunction<V, R> f) {
+        return new PossiblySingleFlight<>(f);
+    }
+    /**
+     * Override of the Function.apply. Blocks until the call for the key is
+     * done
+     * @param key the key to apply the function to
+     * @return the Possibly shared by all of the concurrent calls for the key,
+     * or an exceptional Possibly if the wait is interrupted
+     */
+    @Override
+    public Possibly<R> apply(V key) {
+        if(key == null) {
+            return f.apply(key);
+        }
+        CompletableFuture<Possibly<R>> mine = new CompletableFuture<>();
+        CompletableFuture<Possibly<R>> existing = inFlight.putIfAbsent(key, mine);
+        if(existing != null) {
+            return await(existing);
+        }
+        try {
+            Possibly<R> p = f.apply(key);
+            mine.complete(p);
+            return p;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+    /**
+     * Apply the function on an executor, joining a call for the key that is
+     * already running
+     * @param key the key to apply the function to
+     * @param executor the executor to run the function on
+     * @return a future of the Possibly shared by all of the concurrent calls
+     * for the key. The future is never completed exceptionally
+     */
+    public CompletableFuture<Possibly<R>> applyAsync(V key, Executor executor) {
+        if(key == null) {
+            try {
+                return CompletableFuture.supplyAsync(() -> f.apply(null), executor);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.completedFuture(Possibly.of(e));
+            }
+        }
+        CompletableFuture<Possibly<R>> mine = new CompletableFuture<>();
+        CompletableFuture<Possibly<R>> existing = inFlight.putIfAbsent(key, mine);
+        if(existing == null) {
+            existing = mine;
+            try {
+                executor.execute(() -> {
+                    try {
+                        mine.complete(f.apply(key));
+                    } catch (Throwable t) {
+                        mine.completeExceptionally(t);
+                        throw t;
+                    } finally {
+                        inFlight.remove(key, mine);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, mine);
+                mine.complete(Possibly.of(e));
+            }
+        }
+        // each caller gets its own future so one cannot complete the others
+        return existing.handle((p, t) -> t == null ? p : Possibly.of(PossiblyFutures.toException(t)));
+    }
+    /**
+     * the number of keys with a call in flight
+     * @return the number of keys
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+    private Possibly<R> await(CompletableFuture<Possibly<R>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Possibly.of(e);
+        } catch (ExecutionException e) {
+            return Possibly.of(PossiblyFutures.toException(e.getCause()));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * <p>A stream of values and exceptions that does not wrap each element in a
+ * Possibly at every stage. A pipeline such as
+ *
+ * <pre>lines.stream()
+ *         .map(PossiblyFunction.of(s -&gt; parse(s)))
+ *         .map(p -&gt; p.map(v -&gt; convert(v)))
+ *         .map(p -&gt; p.filter(v -&gt; v.isValid()))</pre>
+ *
+ * allocates a new Possibly for every element at every stage. The same
+ * pipeline written as
+ *
+ * <pre>PossiblyStream.of(lines.stream())
+ *         .mapChecked(s -&gt; parse(s))
+ *         .map(v -&gt; convert(v))
+ *         .filter(v -&gt; v.isValid())
+ *         .collect(PossiblyCollectors.partitioning())</pre>
+ *
+ * carries successful values through unwrapped and a failed element as a
+ * single holder for its exception that every later stage passes along
+ * without calling its function. A Possibly is only created by the terminal
+ * operations that return one.
+ *
+ * <p>The elements flow through an ordinary Stream, so the stages are fused
+ * by the Stream implementation and parallel streams split through the
+ * underlying Spliterator as usual. A function that returns null turns the
+ * element into a failure with an IllegalArgumentException, the same as a
+ * PossiblyFunction.
+ *
+ * @author randal kamradt
+ * @param <T> the type of the values in the stream
+ * @since 1.0.2
+ */
+public final class PossiblyStream<T> {
+    private final Stream<Object> stream;
+
+    private PossiblyStream(Stream<Object> stream) {
+        this.stream = stream;
+    }
+    /**
+     * Create a PossiblyStream of values. Null elements are dropped
+     * @param <T> the type of the values
+     * @param stream the stream of values
+     * @return a new PossiblyStream
+     */
+    @SuppressWarnings("unchecked")
+    static public <T> PossiblyStream<T> of(final Stream<T> stream) {
+        return new PossiblyStream<>((Stream<Object>)stream.filter(Objects::nonNull));
+    }
+    /**
+     * Create a PossiblyStream from a stream of Possibly. Empty elements are
+     * dropped
+     * @param <T> the type of the values
+     * @param stream the stream of Possibly
+     * @return a new PossiblyStream
+     */
+    static public <T> PossiblyStream<T> from(final Stream<Possibly<T>> stream) {
+        return new PossiblyStream<>(stream.map(p -> {
+            T value = p.valueOrNull();
+            if(value != null) {
+                return value;
+            }
+            Exception exception = p.exceptionOrNull();
+            return exception == null ? null : new Failure(exception);
+        }).filter(Objects::nonNull));
+    }
+    /**
+     * Map the values with a function that can throw an exception. An
+     * exception or a null result turns the element into a failure
+     * @param <R> the type of the mapped values
+     * @param mapper the function to map the values
+     * @return a PossiblyStream of the mapped values
+     */
+    public <R> PossiblyStream<R> mapChecked(PossiblyFunction.ExceptionFunction<? super T, ? extends R> mapper) {
+        return next(o -> {
+            try {
+                return orFailure(mapper.apply(cast(o)));
+            } catch (Exception e) {
+                return new Failure(e);
+            }
+        });
+    }
+    /**
+     * Map the values. A null result turns the element into a failure
+     * @param <R> the type of the mapped values
+     * @param mapper the function to map the values
+     * @return a PossiblyStream of the mapped values
+     */
+    public <R> PossiblyStream<R> map(Function<? super T, ? extends R> mapper) {
+        return next(o -> orFailure(mapper.apply(cast(o))));
+    }
+    /**
+     * Keep the values that match a predicate that can throw an exception.
+     * An exception turns the element into a failure
+     * @param predicate the predicate to test the values
+     * @return a PossiblyStream of the matching values and all failures
+     */
+    public PossiblyStream<T> filterChecked(PossiblyPredicate.ExceptionPredicate<? super T> predicate) {
+        return next(o -> {
+            try {
+                return predicate.test(cast(o)) ? o : null;
+            } catch (Exception e) {
+                return new Failure(e);
+            }
+        });
+    }
+    /**
+     * Keep the values that match a predicate
+     * @param predicate the predicate to test the values
+     * @return a PossiblyStream of the matching values and all failures
+     */
+    public PossiblyStream<T> filter(Predicate<? super T> predicate) {
+        return new PossiblyStream<>(stream.filter(o -> o instanceof Failure || predicate.test(cast(o))));
+    }
+    /**
+     * Perform an action on each exception as it passes, for logging or other
+     * side-effects
+     * @param action the action to perform
+     * @return a PossiblyStream with the same elements
+     */
+    public PossiblyStream<T> peekFailures(Consumer<Exception> action) {
+        return new PossiblyStream<>(stream.peek(o -> {
+            if(o instanceof Failure) {
+                action.accept(((Failure)o).exception);
+            }
+        }));
+    }
+    /**
+     * Replace each exception with a value from a function that can throw an
+     * exception. An exception or a null result from the function replaces
+     * the original one
+     * @param recovery the function to map an exception to a value
+     * @return a PossiblyStream where recovered failures are values
+     */
+    public PossiblyStream<T> recover(PossiblyFunction.ExceptionFunction<? super Exception, ? extends T> recovery) {
+        return new PossiblyStream<>(stream.map(o -> {
+            if(!(o instanceof Failure)) {
+                return o;
+            }
+            try {
+                return orFailure(recovery.apply(((Failure)o).exception));
+            } catch (Exception e) {
+                return new Failure(e);
+            }
+        }));
+    }
+    /**
+     * Make the stream parallel
+     * @return a parallel PossiblyStream
+     */
+    public PossiblyStream<T> parallel() {
+        return new PossiblyStream<>(stream.parallel());
+    }
+    /**
+     * Make the stream sequential
+     * @return a sequential PossiblyStream
+     */
+    public PossiblyStream<T> sequential() {
+        return new PossiblyStream<>(stream.sequential());
+    }
+    /**
+     * whether the stream will run in parallel
+     * @return true if the stream is parallel
+     */
+    public boolean isParallel() {
+        return stream.isParallel();
+    }
+    /**
+     * Collect the elements as Possibly, for example with
+     * PossiblyCollectors.partitioning
+     * @param <R> the type of the result
+     * @param <A> the accumulation type of the collector
+     * @param collector the collector
+     * @return the collected result
+     */
+    public <R, A> R collect(Collector<? super Possibly<T>, A, R> collector) {
+        return stream().collect(collector);
+    }
+    /**
+     * Perform one action on each value and another on each exception
+     * @param values the action for values
+     * @param failures the action for exceptions
+     */
+    public void forEach(Consumer<? super T> values, Consumer<Exception> failures) {
+        stream.forEach(o -> {
+            if(o instanceof Failure) {
+                failures.accept(((Failure)o).exception);
+            } else {
+                values.accept(cast(o));
+            }
+        });
+    }
+    /**
+     * The elements as a stream of Possibly. This is where the elements are
+     * wrapped
+     * @return a stream of Possibly
+     */
+    public Stream<Possibly<T>> stream() {
+        return stream.map(PossiblyStream::toPossibly);
+    }
+    /**
+     * The values, dropping the exceptions
+     * @return a stream of the values
+     */
+    public Stream<T> values() {
+        return stream.filter(o -> !(o instanceof Failure)).map(PossiblyStream::cast);
+    }
+    /**
+     * The exceptions, dropping the values
+     * @return a stream of the exceptions
+     */
+    public Stream<Exception> failures() {
+        return stream.filter(o -> o instanceof Failure).map(o -> ((Failure)o).exception);
+    }
+    /**
+     * Add a stage that maps the values and passes failures along. A null
+     * from the mapper drops the element, which is how the filters remove
+     * one
+     * @param <R> the type of the next stage
+     * @param mapper the function to map a value element
+     * @return the next stage
+     */
+    private <R> PossiblyStream<R> next(Function<Object, Object> mapper) {
+        return new PossiblyStream<>(stream
+                .map(o -> o instanceof Failure ? o : mapper.apply(o))
+                .filter(Objects::nonNull));
+    }
+    /**
+     * The result of a mapping function, or a failure if it is null, the
+     * same as Possibly.of
+     */
+    private static Object orFailure(Object result) {
+        return result != null ? result
+                : new Failure(new IllegalArgumentException("value of Possibly cannot be null"));
+    }
+    private static <T> Possibly<T> toPossibly(Object o) {
+        if(o instanceof Failure) {
+            return Possibly.of(((Failure)o).exception);
+        }
+        T value = cast(o);
+        return Possibly.of(value);
+    }
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object o) {
+        return (T)o;
+    }
+    /**
+     * The holder for an exception as it passes through the stream
+     */
+    private static final class Failure {
+        private final Exception exception;
+
+        private Failure(Exception exception) {
+            this.exception = exception;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Stream adapters that end a stream of Possibly at the first failure or at
+ * the end of the input. Java 8 has no Stream.takeWhile, so the code
+ *
+ * <pre>Stream.generate(PossiblySupplier.of(() -&gt; nis.read()))</pre>
+ *
+ * never ends, even after the input is exhausted or broken. The code
+ *
+ * <pre>PossiblyStreams.generate(() -&gt; nis.read(), b -&gt; b &lt; 0)</pre>
+ *
+ * ends when read returns -1, and if read throws the exception is the last
+ * element of the stream, so a terminal operation sees it as the result.
+ *
+ * <p>The adapters are Spliterators, so they work in parallel streams. Each
+ * segment of a split source has its own place in the encounter order. Once
+ * a segment sees a failure, every segment after it stops at its next
+ * element and the segments before it keep going, so every element ahead of
+ * the first failure is kept. A segment after the first failure can still
+ * have passed on a few elements before the failure was seen. For an
+ * unordered source a failure in any segment stops all of them.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyStreams {
+    private PossiblyStreams() {
+    }
+    /**
+     * End a stream of Possibly after its first exceptional element. The
+     * exceptional element is the last element of the returned stream, and
+     * every element before it is kept. In a parallel stream the segments
+     * after the failure stop, but elements they read before it was seen
+     * can follow it
+     * @param <T> the type of the Possibly
+     * @param stream the stream to end at the first failure
+     * @return a stream that ends at the first failure
+     */
+    public static <T> Stream<Possibly<T>> untilFailure(Stream<Possibly<T>> stream) {
+        if(stream == null)
+            throw new IllegalArgumentException("stream of untilFailure cannot be null");
+        UntilFailure<T> spliterator = new UntilFailure<>(stream.spliterator(), new AtomicLong(Long.MAX_VALUE),
+                0, Long.MAX_VALUE);
+        return StreamSupport.stream(spliterator, stream.isParallel()).onClose(stream::close);
+    }
+    /**
+     * Generate a stream from an ExceptionSupplier that ends when the supplier
+     * returns null or after the first exception it throws. The exception is
+     * the last element of the stream
+     * @param <T> the type of the Possibly
+     * @param supplier the supplier of the values
+     * @return a stream that ends at the end of the input or the first failure
+     */
+    public static <T> Stream<Possibly<T>> generate(PossiblySupplier.ExceptionSupplier<? extends T> supplier) {
+        return generate(supplier, v -> false);
+    }
+    /**
+     * Generate a stream from an ExceptionSupplier that ends when the supplier
+     * returns null or a value that matches endOfInput, or after the first
+     * exception it throws. The exception is the last element of the stream
+     * and the end of input value is not part of the stream
+     * @param <T> the type of the Possibly
+     * @param supplier the supplier of the values
+     * @param endOfInput a predicate that is true for the value that marks
+     * the end of the input
+     * @return a stream that ends at the end of the input or the first failure
+     */
+    public static <T> Stream<Possibly<T>> generate(PossiblySupplier.ExceptionSupplier<? extends T> supplier,
+            Predicate<? super T> endOfInput) {
+        if(supplier == null || endOfInput == null)
+            throw new IllegalArgumentException("supplier and endOfInput of generate cannot be null");
+        return StreamSupport.stream(new Generator<>(supplier, endOfInput), false);
+    }
+    /**
+     * A Spliterator that passes the elements of its source through until it
+     * or a segment before it sees a failure. Each segment owns the range of
+     * keys from its key up to its limit and gives the lower half to the
+     * prefix it splits off, so the order of the keys is the encounter order
+     * of the segments. The segments share the lowest key that has failed
+     * @param <T> the type of the Possibly
+     */
+    private static final class UntilFailure<T> implements Spliterator<Possibly<T>>, Consumer<Possibly<T>> {
+        private final Spliterator<Possibly<T>> source;
+        private final AtomicLong failed;
+        private long key;
+        private final long limit;
+        private boolean done;
+        private Possibly<T> current;
+
+        private UntilFailure(Spliterator<Possibly<T>> source, AtomicLong failed, long key, long limit) {
+            this.source = source;
+            this.failed = failed;
+            this.key = key;
+            this.limit = limit;
+        }
+        @Override
+        public void accept(Possibly<T> p) {
+            current = p;
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super Possibly<T>> action) {
+            if(stopped() || !source.tryAdvance(this)) {
+                return false;
+            }
+            Possibly<T> p = current;
+            current = null;
+            if(p.exceptional()) {
+                done = true;
+                long f;
+                while(key < (f = failed.get()) && !failed.compareAndSet(f, key)) {
+                }
+            }
+            action.accept(p);
+            return true;
+        }
+        /**
+         * true once this segment has failed, or a segment before it has
+         */
+        private boolean stopped() {
+            if(done) {
+                return true;
+            }
+            long f = failed.get();
+            if(f == Long.MAX_VALUE || (f > key && source.hasCharacteristics(ORDERED))) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+        @Override
+        public Spliterator<Possibly<T>> trySplit() {
+            long mid = key + (limit - key) / 2;
+            if(mid == key || stopped()) {
+                return null;
+            }
+            Spliterator<Possibly<T>> prefix = source.trySplit();
+            if(prefix == null) {
+                return null;
+            }
+            UntilFailure<T> split = new UntilFailure<>(prefix, failed, key, mid);
+            key = mid;
+            return split;
+        }
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+        @Override
+        public int characteristics() {
+            return source.characteristics() & (ORDERED | NONNULL | IMMUTABLE | CONCURRENT);
+        }
+    }
+    /**
+     * A Spliterator that calls the supplier until the end of the input or
+     * the first failure. Parallel streams split it into batches the same
+     * way as any other Spliterator of unknown size
+     * @param <T> the type of the Possibly
+     */
+    private static final class Generator<T> extends Spliterators.AbstractSpliterator<Possibly<T>> {
+        private final PossiblySupplier.ExceptionSupplier<? extends T> supplier;
+        private final Predicate<? super T> endOfInput;
+        private boolean done;
+
+        private Generator(PossiblySupplier.ExceptionSupplier<? extends T> supplier,
+                Predicate<? super T> endOfInput) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.supplier = supplier;
+            this.endOfInput = endOfInput;
+        }
+        @Override
+        public boolean tryAdvance(Consumer<? super Possibly<T>> action) {
+            if(done) {
+                return false;
+            }
+            T value;
+            try {
+                value = supplier.get();
+            } catch (Exception e) {
+                done = true;
+                action.accept(Possibly.of(e));
+                return true;
+            }
+            if(value == null || endOfInput.test(value)) {
+                done = true;
+                return false;
+            }
+            action.accept(Possibly.of(value));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>A time limit for the calls of a PossiblyFunction or PossiblySupplier.
+ * Each call runs on an executor and its deadline is scheduled on a
+ * hashed-wheel timer shared by all instances, so a pending call costs one
+ * small object on the wheel and no ScheduledFuture or waiting thread. When
+ * the deadline passes first the call's future completes with an exceptional
+ * Possibly holding a TimeoutException, and the worker running the call is
+ * interrupted.
+ *
+ * <pre>PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(200));
+ * List&lt;CompletableFuture&lt;Possibly&lt;User&gt;&gt;&gt; users = ids
+ *         .map(timeout.wrapAsync(id -&gt; lookup(id), executor))
+ *         .collect(Collectors.toList());</pre>
+ *
+ * <p>The timer ticks every ten milliseconds, so a call can time out up to
+ * one tick past its timeout. A call that ignores interrupts runs to
+ * completion on its worker and its result is thrown away. The executor
+ * should be bounded, a call it rejects completes with the
+ * RejectedExecutionException.
+ *
+ * <p>The wrap methods are for callers that need the result on their own
+ * thread. They start the call the same way and then wait for its future,
+ * so each call holds both the caller and a worker until it finishes or
+ * times out. The caller's thread is never interrupted, which matters when
+ * it is a pool or ForkJoin worker or is using an InterruptibleChannel.
+ *
+ * <p>The TimeoutException is created without a stack trace, so timing out
+ * does not walk the stack.
+ *
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+public final class PossiblyTimeout {
+    private final long timeoutNanos;
+    private final String message;
+
+    private PossiblyTimeout(long timeoutNanos, String message) {
+        this.timeoutNanos = timeoutNanos;
+        this.message = message;
+    }
+    /**
+     * used to publicly create a PossiblyTimeout
+     * @param timeout the time limit for each call
+     * @return A new PossiblyTimeout
+     */
+    static public PossiblyTimeout of(final Duration timeout) {
+        if(timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("timeout must be positive");
+        return new PossiblyTimeout(timeout.toNanos(), "timed out after " + timeout.toMillis() + "ms");
+    }
+    /**
+     * Wrap a supplier so that each call runs on the executor and its future
+     * completes with a TimeoutException if the call takes longer than the
+     * timeout
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @param executor the executor to run the supplier on
+     * @return the limited asynchronous supplier
+     */
+    public <T> Supplier<CompletableFuture<Possibly<T>>> wrapAsync(PossiblySupplier.ExceptionSupplier<T> f,
+            Executor executor) {
+        PossiblySupplier<T> supplier = PossiblySupplier.of(f);
+        return () -> start(supplier, executor).result;
+    }
+    /**
+     * Wrap a function so that each call runs on the executor and its future
+     * completes with a TimeoutException if the call takes longer than the
+     * timeout
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @param executor the executor to run the function on
+     * @return the limited asynchronous function
+     */
+    public <V, R> Function<V, CompletableFuture<Possibly<R>>> wrapAsync(PossiblyFunction.ExceptionFunction<V, R> f,
+            Executor executor) {
+        PossiblyFunction<V, R> function = PossiblyFunction.of(f);
+        return value -> start(() -> function.apply(value), executor).result;
+    }
+    /**
+     * Wrap a supplier so that it runs on the executor and the caller waits
+     * at most the timeout for it, then throws the TimeoutException. The
+     * worker is interrupted on timeout, and the caller is never interrupted
+     * @param <T> the type to supply
+     * @param f the supplier to wrap
+     * @param executor the executor to run the supplier on
+     * @return the limited supplier
+     */
+    public <T> PossiblySupplier.ExceptionSupplier<T> wrap(PossiblySupplier.ExceptionSupplier<T> f,
+            Executor executor) {
+        PossiblySupplier<T> supplier = PossiblySupplier.of(f);
+        return () -> await(start(supplier, executor));
+    }
+    /**
+     * Wrap a function so that it runs on the executor and the caller waits
+     * at most the timeout for it, then throws the TimeoutException. The
+     * worker is interrupted on timeout, and the caller is never interrupted
+     * @param <V> the type to map
+     * @param <R> the type to return
+     * @param f the function to wrap
+     * @param executor the executor to run the function on
+     * @return the limited function
+     */
+    public <V, R> PossiblyFunction.ExceptionFunction<V, R> wrap(PossiblyFunction.ExceptionFunction<V, R> f,
+            Executor executor) {
+        PossiblyFunction<V, R> function = PossiblyFunction.of(f);
+        return value -> await(start(() -> function.apply(value), executor));
+    }
+    /**
+     * Limit the time to wait for a future, for example from
+     * PossiblyAsyncFunction. The future is not cancelled, its result is
+     * ignored if it comes after the timeout
+     * @param <T> the type of the Possibly
+     * @param future the future to wait for
+     * @return a future that completes with the result of future, or an
+     * exceptional Possibly with a TimeoutException
+     */
+    public <T> CompletableFuture<Possibly<T>> within(CompletableFuture<Possibly<T>> future) {
+        CompletableFuture<Possibly<T>> result = new CompletableFuture<>();
+        HashedWheelTimer.Timeout timeout = new HashedWheelTimer.Timeout() {
+            @Override
+            void run() {
+                result.complete(Possibly.of(timedOut()));
+            }
+        };
+        HashedWheelTimer.shared().schedule(timeout, timeoutNanos);
+        future.whenComplete((p, t) -> {
+            timeout.cancel();
+            result.complete(t == null ? p : Possibly.of(PossiblyFutures.toException(t)));
+        });
+        return result;
+    }
+    /**
+     * schedule the deadline of a call and run it on the executor
+     */
+    private <T> Call<T> start(Supplier<Possibly<T>> f, Executor executor) {
+        Call<T> call = new Call<>(f);
+        HashedWheelTimer.shared().schedule(call.deadline, timeoutNanos);
+        try {
+            executor.execute(call);
+        } catch (RejectedExecutionException e) {
+            call.deadline.cancel();
+            call.result.complete(Possibly.of(e));
+        }
+        return call;
+    }
+    /**
+     * wait for a call on the caller's thread and give back its value or
+     * throw its exception
+     */
+    private <T> T await(Call<T> call) throws Exception {
+        Possibly<T> p;
+        try {
+            p = call.result.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        Exception e = p.exceptionOrNull();
+        if(e != null) {
+            throw e;
+        }
+        return p.valueOrNull();
+    }
+    /**
+     * a new TimeoutException for a call that timed out. Each call gets its
+     * own so that nothing added to one, such as a suppressed exception, is
+     * seen by another
+     */
+    private TimeoutException timedOut() {
+        return new StacklessTimeoutException(message);
+    }
+    /**
+     * A call on the executor. Its deadline completes the result with a
+     * TimeoutException and cancels the task, which interrupts the worker
+     */
+    private final class Call<T> extends FutureTask<Possibly<T>> {
+        private final CompletableFuture<Possibly<T>> result = new CompletableFuture<>();
+        private final HashedWheelTimer.Timeout deadline = new HashedWheelTimer.Timeout() {
+            @Override
+            void run() {
+                result.complete(Possibly.of(timedOut()));
+                Call.this.cancel(true);
+            }
+        };
+
+        private Call(Supplier<Possibly<T>> f) {
+            super(f::get);
+        }
+        @Override
+        protected void done() {
+            deadline.cancel();
+            if(isCancelled()) {
+                return;
+            }
+            try {
+                result.complete(get());
+            } catch (ExecutionException e) {
+                // only an Error gets here, PossiblySupplier and
+                // PossiblyFunction catch every Exception
+                result.complete(Possibly.of(PossiblyFutures.toException(e.getCause())));
+            } catch (InterruptedException e) {
+                // get does not wait once the task is done
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    /**
+     * A TimeoutException without a stack trace
+     */
+    private static final class StacklessTimeoutException extends TimeoutException {
+        private static final long serialVersionUID = 1L;
+
+        private StacklessTimeoutException(String message) {
+            super(message);
+        }
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
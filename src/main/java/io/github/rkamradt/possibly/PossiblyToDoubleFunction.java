@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Function;
+
+/**
+ * A replacement for ToDoubleFunction that will return a PossiblyDouble to contain a
+ * value or an exception. This will allow using methods that throw a checked
+ * exception to be used in a lambda without boxing the mapped value
+ * @author randal kamradt
+ * @param <V> the type to map
+ * @since 1.0.2
+ */
+public class PossiblyToDoubleFunction<V> implements Function<V, PossiblyDouble> {
+    /**
+     * Replacement for ToDoubleFunction type except it adds throws Exception to the
+     * applyAsDouble method. This class wraps this interface to create a
+     * PossiblyDouble with a value or an exception
+     */
+    private final ExceptionToDoubleFunction<V> f;
+    /** 
+     * Create a PossiblyToDoubleFunction that wraps the ExceptionToDoubleFunction
+     * @param f the ExceptionToDoubleFunction to wrap
+     */
+    private PossiblyToDoubleFunction(final ExceptionToDoubleFunction<V> f) {
+        this.f = f;
+    }
+    /**
+     * used to publicly create a PossiblyToDoubleFunction
+     * @param <V> The type of value to map
+     * @param f The wrapped function
+     * @return A new PossiblyToDoubleFunction
+     */
+    static public <V> PossiblyToDoubleFunction<V> of(final ExceptionToDoubleFunction<V> f) {
+        return new PossiblyToDoubleFunction<>(f);
+    }
+    /** 
+     * Override of the Function.apply
+     * @param value the value to map
+     * @return A PossiblyDouble with the mapped value or an exception
+     */
+    @Override
+    public PossiblyDouble apply(V value) {
+        try {
+            return PossiblyDouble.of(f.applyAsDouble(value));
+        } catch (Exception e) {
+            return PossiblyDouble.of(e);
+        }
+    }
+    /**
+     * A ToDoubleFunction that allows checked exceptions
+     * @param <V> The type of value to map
+     */
+    @FunctionalInterface
+    public interface ExceptionToDoubleFunction<V> {
+        /**
+         * Apply the function to the value
+         * @param value the value to map
+         * @return the mapped value
+         * @throws Exception to be caught by the wrapping class
+         */
+        double applyAsDouble(V value) throws Exception;
+    }
+}
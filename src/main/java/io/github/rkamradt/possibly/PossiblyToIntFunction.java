@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.function.Function;
+
+/**
+ * A replacement for ToIntFunction that will return a PossiblyInt to contain a
+ * value or an exception. This will allow using methods that throw a checked
+ * exception to be used in a lambda without boxing the mapped value
+ * @author randal kamradt
+ * @param <V> the type to map
+ * @since 1.0.2
+ */
+public class PossiblyToIntFunction<V> implements Function<V, PossiblyInt> {
+    /**
+     * Replacement for ToIntFunction type except it adds throws Exception to the
+     * applyAsInt method. This class wraps this interface to create a
+     * PossiblyInt with a value or an exception
+     */
+    private final ExceptionToIntFunction<V> f;
+    /** 
+     * Create a PossiblyToIntFunction that wraps the ExceptionToIntFunction
+     * @param f the ExceptionToIntFunction to wrap
+     */
+    private PossiblyToIntFunction(final ExceptionToIntFunction<V> f) {
+        this.f = f;
+    }
+    /**
+     * used to publicly create a PossiblyToIntFunction
+     * @param <V> The type of value to map
+     * @param f The wrapped function
+     * @return A new PossiblyToIntFunction
+     */
+    static public <V> PossiblyToIntFunction<V> of(final ExceptionToIntFunction<V> f) {
+        return new PossiblyToIntFunction<>(f);
+    }
+    /** 
+     * Override of the Function.apply
+     * @param value the value to map
+     * @return A PossiblyInt with the mapped value or an exception
+     */
+    @Override
+    public PossiblyInt apply(V value) {
+        try {
+            return PossiblyInt.of(f.applyAsInt(value));
+        } catch (Exception e) {
+            return PossiblyInt.of(e);
+        }
+    }
+    /**
+     * A ToIntFunction that allows checked exceptions
+     * @param <V> The type of value to map
+     */
+    @FunctionalInterface
+    public interface ExceptionToIntFunction<V> {
+        /**
+         * Apply the function to the value
+         * @param value the value to map
+         * @return the mapped value
+         * @throws Exception to be caught by the wrapping class
+         */
+        int applyAsInt(V value) throws Exception;
+    }
+}
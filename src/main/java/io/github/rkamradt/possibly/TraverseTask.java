@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The fork/join task behind Possibly.traverse. The inputs are split in half
+ * until a range is small enough to run directly, and every range writes its
+ * results into one shared array. The first failure to happen is recorded
+ * once and raises a shared flag that every range checks before each call, so
+ * ranges that have not started yet return at once and ranges that are
+ * running stop before their next element. A call that is already running is
+ * not cancelled or interrupted, it runs to the end. A null result is a
+ * failure, the same as in PossiblyFunction. The grain aims for several
+ * ranges per worker, so only a list of one value is small enough to run on
+ * the caller's thread without a trip through the pool.
+ * @author randal kamradt
+ * @since 1.0.2
+ */
+final class TraverseTask<V, R> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The number of leaf ranges to aim for per worker thread, enough that an
+     * idle worker can steal work without splitting down to single elements
+     */
+    private static final int LEAVES_PER_THREAD = 4;
+    private final Shared<V, R> shared;
+    private final int lo;
+    private final int hi;
+
+    private TraverseTask(Shared<V, R> shared, int lo, int hi) {
+        this.shared = shared;
+        this.lo = lo;
+        this.hi = hi;
+    }
+    /**
+     * Apply the function to every value on the pool
+     * @param <V> the type of the values
+     * @param <R> the type of the results
+     * @param values the values to apply the function to
+     * @param f the function
+     * @param pool the pool to run on
+     * @return a Possibly with all of the results or the first failure to
+     * happen
+     */
+    @SuppressWarnings("unchecked")
+    static <V, R> Possibly<List<R>> traverse(List<V> values,
+            PossiblyFunction.ExceptionFunction<? super V, ? extends R> f,
+            ForkJoinPool pool) {
+        Object[] inputs = values.toArray();
+        int grain = Math.max(1, inputs.length / (pool.getParallelism() * LEAVES_PER_THREAD));
+        Shared<V, R> shared = new Shared<>(inputs, f, grain);
+        TraverseTask<V, R> root = new TraverseTask<>(shared, 0, inputs.length);
+        if(inputs.length <= grain) {
+            root.compute();
+        } else {
+            pool.invoke(root);
+        }
+        Exception e = shared.outcome.get();
+        if(e != null) {
+            return Possibly.of(e);
+        }
+        List<R> results = (List<R>)Arrays.asList(shared.results);
+        return Possibly.of(Collections.unmodifiableList(results));
+    }
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void compute() {
+        if(shared.stopped) {
+            return;
+        }
+        if(hi - lo > shared.grain) {
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new TraverseTask<>(shared, lo, mid),
+                    new TraverseTask<>(shared, mid, hi));
+            return;
+        }
+        for(int i = lo; i < hi && !shared.stopped; i++) {
+            R result;
+            try {
+                result = shared.f.apply((V)shared.inputs[i]);
+            } catch (Exception e) {
+                shared.stop(e);
+                return;
+            }
+            if(result == null) {
+                shared.stop(new IllegalArgumentException("value of Possibly cannot be null"));
+                return;
+            }
+            shared.results[i] = result;
+        }
+    }
+    /**
+     * The state shared by every range of one traversal
+     */
+    private static final class Shared<V, R> {
+        private final Object[] inputs;
+        private final Object[] results;
+        private final PossiblyFunction.ExceptionFunction<? super V, ? extends R> f;
+        private final int grain;
+        private final AtomicReference<Exception> outcome = new AtomicReference<>();
+        private volatile boolean stopped;
+
+        private Shared(Object[] inputs,
+                PossiblyFunction.ExceptionFunction<? super V, ? extends R> f,
+                int grain) {
+            this.inputs = inputs;
+            this.results = new Object[inputs.length];
+            this.f = f;
+            this.grain = grain;
+        }
+        /**
+         * Record the failure if it is the first and stop every range
+         * @param e the failure
+         */
+        private void stop(Exception e) {
+            outcome.compareAndSet(null, e);
+            stopped = true;
+        }
+    }
+}
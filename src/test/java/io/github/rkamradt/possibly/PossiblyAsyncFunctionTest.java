@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyAsyncFunctionTest {
+    public static final String GOOD_VALUE = "good";
+    public static final String BAD_VALUE = "bad";
+    public PossiblyAsyncFunctionTest() {
+    }
+
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<Possibly<String>>> list = Stream.of(GOOD_VALUE, BAD_VALUE)
+                    .map(PossiblyAsyncFunction.of(s -> mapWithException(s), executor))
+                    .collect(Collectors.toList());
+            assertEquals(GOOD_VALUE, list.get(0).join().getValue().get());
+            assertFalse(list.get(1).isCompletedExceptionally());
+            assertEquals("bad value", list.get(1).join().getException().get().getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejected() {
+        System.out.println("rejected");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Possibly<String> result = PossiblyAsyncFunction.<String, String>of(s -> mapWithException(s), executor)
+                .apply(GOOD_VALUE)
+                .join();
+        assertTrue(result.getException().get() instanceof RejectedExecutionException);
+    }
+    
+    private String mapWithException(String value) throws Exception {
+        if("bad".equals(value)) {
+            throw new Exception("bad value");
+        }
+        return value;
+    }
+    
+}
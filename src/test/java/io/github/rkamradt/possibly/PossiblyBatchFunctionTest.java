@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyBatchFunctionTest {
+    public PossiblyBatchFunctionTest() {
+    }
+    public AtomicInteger calls = new AtomicInteger(0);
+    public List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        List<Integer> values = IntStream.range(0, 16).boxed().collect(Collectors.toList());
+        List<Possibly<String>> list = PossiblyBatchFunction.<Integer, String>of(v -> mapWithException(v), 16)
+                .apply(values);
+        assertEquals(16, list.size());
+        for(int i = 0; i < 16; i++) {
+            if(i == 3 || i == 12) {
+                assertTrue(list.get(i).exceptional());
+                assertEquals("bad value " + i, list.get(i).getException().get().getMessage());
+            } else {
+                assertEquals(String.valueOf(i), list.get(i).getValue().get());
+            }
+        }
+        // the whole batch, then 2 halves of 8, 4 of 4, 4 of 2 and 4 of 1
+        assertEquals(15, calls.get());
+    }
+
+    @Test
+    public void testBatch() {
+        System.out.println("batch");
+        List<Possibly<String>> list = PossiblyBatchFunction.<Integer, String>of(v -> mapWithException(v), 5)
+                .batch(IntStream.range(0, 12).boxed())
+                .collect(Collectors.toList());
+        assertEquals(12, list.size());
+        assertEquals("0", list.get(0).getValue().get());
+        assertTrue(list.get(3).exceptional());
+        assertEquals("11", list.get(11).getValue().get());
+        assertEquals(Integer.valueOf(5), sizes.get(0));
+    }
+
+    @Test
+    public void testBatchParallel() {
+        System.out.println("batchParallel");
+        List<Possibly<String>> list = PossiblyBatchFunction.<Integer, String>of(v -> mapWithException(v),
+                        100, Duration.ofSeconds(1))
+                .batch(IntStream.range(0, 10_000).boxed().parallel())
+                .collect(Collectors.toList());
+        assertEquals(10_000, list.size());
+        assertEquals("9999", list.get(9999).getValue().get());
+        assertEquals(2, list.stream().filter(Possibly::exceptional).count());
+        assertTrue(sizes.stream().allMatch(size -> size <= 100));
+    }
+
+    @Test
+    public void testSystemicFailure() {
+        System.out.println("systemicFailure");
+        List<Integer> values = IntStream.range(0, 64).boxed().collect(Collectors.toList());
+        List<Possibly<String>> list = PossiblyBatchFunction.<Integer, String>of(v -> {
+                    calls.incrementAndGet();
+                    throw new IOException("backend down");
+                }, 64)
+                .withSystemic(e -> e instanceof IOException)
+                .apply(values);
+        assertEquals(64, list.size());
+        assertTrue(list.stream().allMatch(p -> "backend down".equals(p.getException().get().getMessage())));
+        // only the whole batch, instead of 127 calls
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testSameMessage() {
+        System.out.println("sameMessage");
+        List<Integer> values = IntStream.range(0, 8).boxed().collect(Collectors.toList());
+        List<Possibly<Integer>> list = PossiblyBatchFunction.<Integer, Integer>of(v -> {
+                    if(v.contains(1) || v.contains(6))
+                        throw new IllegalArgumentException("bad id");
+                    return v;
+                }, 8)
+                .apply(values);
+        for(int i = 0; i < 8; i++) {
+            assertEquals(i == 1 || i == 6, list.get(i).exceptional());
+        }
+    }
+
+    @Test
+    public void testWrongSize() {
+        System.out.println("wrongSize");
+        List<Possibly<String>> list = PossiblyBatchFunction.<String, String>of(v -> Collections.emptyList(), 2)
+                .apply(Arrays.asList("a", "b"));
+        assertTrue(list.get(0).getException().get() instanceof IllegalStateException);
+        assertTrue(list.get(1).getException().get() instanceof IllegalStateException);
+    }
+    
+    private List<String> mapWithException(List<Integer> values) throws Exception {
+        calls.incrementAndGet();
+        sizes.add(values.size());
+        for(Integer value : values) {
+            if(value == 3 || value == 12) {
+                throw new Exception("bad value " + value);
+            }
+        }
+        return values.stream().map(String::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyBufferTest {
+
+    public PossiblyBufferTest() {
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        Exception failure = new Exception("fail");
+        PossiblyBuffer<String> buffer = PossiblyBuffer.of();
+        buffer.add(Possibly.of("a"));
+        buffer.add(Possibly.of(failure));
+        buffer.add(Possibly.empty());
+        buffer.addValue("d");
+        assertEquals(4, buffer.size());
+        assertEquals("a", buffer.get(0).getValue().get());
+        assertSame(failure, buffer.get(1).getException().get());
+        assertTrue(buffer.get(2).isEmpty());
+        assertEquals("d", buffer.get(3).getValue().get());
+        assertEquals("ad", buffer.values().collect(Collectors.joining()));
+        assertEquals(1, buffer.failures().count());
+        assertEquals(4, buffer.stream().count());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(4));
+        assertThrows(IllegalArgumentException.class, () -> buffer.addValue(null));
+    }
+
+    @Test
+    public void testCollectParallel() {
+        System.out.println("collectParallel");
+        int count = PossiblyBuffer.CHUNK_SIZE * 5 + 123;
+        Exception failure = new Exception("fail");
+        PossiblyBuffer<Integer> buffer = IntStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> i % 1000 == 7 ? Possibly.<Integer>of(failure) : Possibly.of(i))
+                .collect(PossiblyBuffer.collector());
+        assertEquals(count, buffer.size());
+        for(int i = 0; i < count; i++) {
+            Possibly<Integer> p = buffer.get(i);
+            if(i % 1000 == 7) {
+                assertSame(failure, p.getException().get());
+            } else {
+                assertEquals(i, p.getValue().get().intValue());
+            }
+        }
+        List<Possibly<Integer>> list = buffer.stream().collect(Collectors.toList());
+        assertEquals(count, list.size());
+        assertEquals((count + 992) / 1000, buffer.failures().count());
+    }
+}
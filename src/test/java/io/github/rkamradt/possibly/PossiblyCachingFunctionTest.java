@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyCachingFunctionTest {
+    public static final String GOOD_VALUE = "good";
+    public static final String BAD_VALUE = "bad";
+    public PossiblyCachingFunctionTest() {
+    }
+    public AtomicInteger calls = new AtomicInteger(0);
+
+    @Test
+    public void testApply() {
+        System.out.println("apply");
+        PossiblyCachingFunction<String, String> f = PossiblyCachingFunction.of(s -> mapWithException(s),
+                100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        assertEquals(GOOD_VALUE, f.apply(GOOD_VALUE).getValue().get());
+        assertEquals(GOOD_VALUE, f.apply(GOOD_VALUE).getValue().get());
+        assertTrue(f.apply(BAD_VALUE).exceptional());
+        assertTrue(f.apply(BAD_VALUE).exceptional());
+        assertEquals(2, calls.get());
+        assertEquals(2, f.getHits());
+        assertEquals(2, f.getMisses());
+        assertEquals(2, f.size());
+        f.invalidate(GOOD_VALUE);
+        assertEquals(1, f.size());
+        f.apply(GOOD_VALUE);
+        assertEquals(3, calls.get());
+        f.invalidateAll();
+        assertEquals(0, f.size());
+    }
+
+    @Test
+    public void testFailureTtl() throws Exception {
+        System.out.println("failureTtl");
+        PossiblyCachingFunction<String, String> f = PossiblyCachingFunction.of(s -> mapWithException(s),
+                100, Duration.ofMinutes(1), Duration.ZERO);
+        f.apply(BAD_VALUE);
+        f.apply(BAD_VALUE);
+        assertEquals(2, calls.get());
+        f = PossiblyCachingFunction.of(s -> mapWithException(s),
+                100, Duration.ofMinutes(1), Duration.ofMillis(20));
+        f.apply(BAD_VALUE);
+        f.apply(BAD_VALUE);
+        assertEquals(3, calls.get());
+        Thread.sleep(30);
+        f.apply(BAD_VALUE);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void testBounded() {
+        System.out.println("bounded");
+        PossiblyCachingFunction<Integer, Integer> f = PossiblyCachingFunction.of(i -> i,
+                64, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        // make the first 32 keys popular
+        for(int round = 0; round < 5; round++) {
+            IntStream.range(0, 32).forEach(i -> f.apply(i));
+        }
+        // then scan through many keys that are only used once
+        IntStream.range(1000, 11000).forEach(i -> f.apply(i));
+        assertTrue(f.size() <= 64);
+        long before = f.getHits();
+        IntStream.range(0, 32).forEach(i -> f.apply(i));
+        assertTrue(f.getHits() - before >= 24, "popular keys should survive a scan");
+        assertTrue(f.getEvictions() > 0);
+    }
+    
+    private String mapWithException(String value) throws Exception {
+        calls.incrementAndGet();
+        if("bad".equals(value)) {
+            throw new Exception("bad value");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyCachingSupplierTest {
+    public PossiblyCachingSupplierTest() {
+    }
+    public AtomicInteger state = new AtomicInteger(0);
+    public AtomicBoolean down = new AtomicBoolean(false);
+    private final Executor direct = Runnable::run;
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        PossiblyCachingSupplier<Integer> s = PossiblyCachingSupplier.of(() -> supplyWithException(),
+                Duration.ofMinutes(1), Duration.ZERO, Duration.ZERO, direct);
+        assertEquals(0, s.get().getValue().get());
+        assertEquals(0, s.get().getValue().get());
+        assertEquals(1, state.get());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        System.out.println("refreshAhead");
+        PossiblyCachingSupplier<Integer> s = PossiblyCachingSupplier.of(() -> supplyWithException(),
+                Duration.ofMillis(100), Duration.ofMillis(80), Duration.ZERO, direct);
+        assertEquals(0, s.get().getValue().get());
+        Thread.sleep(40);
+        // still the old value, the refresh has replaced it for the next call
+        assertEquals(0, s.get().getValue().get());
+        assertEquals(1, s.get().getValue().get());
+    }
+
+    @Test
+    public void testStaleIfError() throws Exception {
+        System.out.println("staleIfError");
+        PossiblyCachingSupplier<Integer> s = PossiblyCachingSupplier.of(() -> supplyWithException(),
+                Duration.ofMillis(20), Duration.ZERO, Duration.ofMillis(200), direct);
+        assertEquals(0, s.get().getValue().get());
+        down.set(true);
+        Thread.sleep(30);
+        assertEquals(0, s.get().getValue().get());
+        assertEquals("down", s.getLastFailure().get().getMessage());
+        Thread.sleep(200);
+        assertEquals("down", s.get().getException().get().getMessage());
+        down.set(false);
+        assertTrue(s.get().is());
+        assertFalse(s.getLastFailure().isPresent());
+    }
+
+    @Test
+    public void testNoValue() {
+        System.out.println("noValue");
+        down.set(true);
+        PossiblyCachingSupplier<Integer> s = PossiblyCachingSupplier.of(() -> supplyWithException(),
+                Duration.ofMinutes(1), Duration.ZERO, Duration.ofMinutes(1), direct);
+        assertTrue(s.get().exceptional());
+        assertTrue(s.get().exceptional());
+        assertThrows(IllegalArgumentException.class, () -> PossiblyCachingSupplier.of(() -> 1,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ZERO, direct));
+    }
+    
+    private int supplyWithException() throws Exception {
+        if(down.get()) {
+            throw new Exception("down");
+        }
+        return state.getAndIncrement();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyCircuitBreakerTest {
+    public PossiblyCircuitBreakerTest() {
+    }
+    public AtomicBoolean down = new AtomicBoolean(true);
+    public AtomicInteger calls = new AtomicInteger(0);
+
+    @Test
+    public void testOpenAndClose() throws Exception {
+        System.out.println("openAndClose");
+        PossiblyCircuitBreaker breaker = PossiblyCircuitBreaker.of(0.5, 4,
+                Duration.ofSeconds(60), Duration.ofMillis(50));
+        PossiblyFunction<String, String> f = PossiblyFunction.of(breaker.wrap(s -> call(s)));
+        for(int i = 0; i < 4; i++) {
+            assertEquals("down", f.apply("test").getException().get().getMessage());
+        }
+        assertEquals(PossiblyCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1.0, breaker.getFailureRate());
+        Exception open = f.apply("test").getException().get();
+        assertTrue(open instanceof PossiblyCircuitBreaker.OpenException);
+        assertEquals(0, open.getStackTrace().length);
+        assertSame(open, f.apply("test").getException().get());
+        assertEquals(4, calls.get());
+        Thread.sleep(60);
+        // the probe fails so the circuit opens again
+        assertEquals("down", f.apply("test").getException().get().getMessage());
+        assertEquals(PossiblyCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(5, calls.get());
+        down.set(false);
+        Thread.sleep(60);
+        assertEquals("test", f.apply("test").getValue().get());
+        assertEquals(PossiblyCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    @Test
+    public void testStaysClosed() {
+        System.out.println("staysClosed");
+        PossiblyCircuitBreaker breaker = PossiblyCircuitBreaker.of(0.5, 4,
+                Duration.ofSeconds(60), Duration.ofSeconds(60));
+        PossiblySupplier<String> s = PossiblySupplier.of(breaker.wrap(() -> call("test")));
+        assertTrue(s.get().exceptional());
+        down.set(false);
+        for(int i = 0; i < 10; i++) {
+            assertTrue(s.get().is());
+        }
+        down.set(true);
+        assertTrue(s.get().exceptional());
+        assertEquals(PossiblyCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2.0 / 12.0, breaker.getFailureRate(), 0.0001);
+    }
+
+    @Test
+    public void testProbeError() throws Exception {
+        System.out.println("probeError");
+        PossiblyCircuitBreaker breaker = PossiblyCircuitBreaker.of(0.5, 1,
+                Duration.ofSeconds(60), Duration.ofMillis(50));
+        AtomicBoolean error = new AtomicBoolean(true);
+        PossiblyFunction<String, String> f = PossiblyFunction.of(breaker.wrap(s -> {
+            if(error.get()) {
+                throw new AssertionError("probe");
+            }
+            return call(s);
+        }));
+        assertThrows(AssertionError.class, () -> f.apply("test"));
+        assertEquals(PossiblyCircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(60);
+        // the probe throws an error so the circuit opens again
+        assertThrows(AssertionError.class, () -> f.apply("test"));
+        assertEquals(PossiblyCircuitBreaker.State.OPEN, breaker.getState());
+        error.set(false);
+        down.set(false);
+        Thread.sleep(60);
+        assertEquals("test", f.apply("test").getValue().get());
+        assertEquals(PossiblyCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private String call(String value) throws Exception {
+        calls.incrementAndGet();
+        if(down.get()) {
+            throw new Exception("down");
+        }
+        return value;
+    }
+}
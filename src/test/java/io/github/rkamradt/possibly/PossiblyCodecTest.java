@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyCodecTest {
+    @TempDir
+    Path dir;
+
+    public PossiblyCodecTest() {
+    }
+
+    @Test
+    public void testValues() {
+        System.out.println("values");
+        PossiblyCodec<String> strings = PossiblyCodec.of(PossiblyCodec.STRING);
+        Possibly<String> value = Possibly.of("héllo € 😀");
+        ByteBuffer buf = strings.encode(value);
+        assertEquals(strings.sizeOf(value), buf.remaining());
+        assertEquals(PossiblyCodec.VALUE, buf.get(0));
+        assertEquals(value.getValue().get(), strings.decode(buf).getValue().get());
+        assertFalse(buf.hasRemaining());
+        assertTrue(strings.decode(strings.encode(Possibly.empty())).isEmpty());
+        assertEquals(1, strings.sizeOf(Possibly.empty()));
+        PossiblyCodec<Long> longs = PossiblyCodec.of(PossiblyCodec.LONG);
+        assertEquals(9, longs.sizeOf(Possibly.of(42L)));
+        assertEquals(42L, longs.decode(longs.encode(Possibly.of(42L))).getValue().get().longValue());
+        PossiblyCodec<byte[]> bytes = PossiblyCodec.of(PossiblyCodec.BYTES);
+        assertArrayEquals(new byte[] { 1, 2, 3 },
+                bytes.decode(bytes.encode(Possibly.of(new byte[] { 1, 2, 3 }))).getValue().get());
+        assertTrue(strings.decode(ByteBuffer.wrap(new byte[] { 7 })).getException().get()
+                instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCorrupt() {
+        System.out.println("corrupt");
+        PossiblyCodec<String> strings = PossiblyCodec.of(PossiblyCodec.STRING, 3);
+        // a negative frame count
+        ByteBuffer negative = ByteBuffer.allocate(13)
+                .put(PossiblyCodec.EXCEPTION).putInt(-1).putInt(-1).putInt(-5);
+        negative.flip();
+        assertTrue(strings.decode(negative).getException().get() instanceof IllegalArgumentException);
+        assertFalse(negative.hasRemaining());
+        // a string length far past the end of the buffer
+        ByteBuffer huge = ByteBuffer.allocate(5).put(PossiblyCodec.VALUE).putInt(Integer.MAX_VALUE);
+        huge.flip();
+        assertTrue(strings.decode(huge).getException().get() instanceof IllegalArgumentException);
+        PossiblyCodec<byte[]> bytes = PossiblyCodec.of(PossiblyCodec.BYTES);
+        ByteBuffer array = ByteBuffer.allocate(5).put(PossiblyCodec.VALUE).putInt(-7);
+        array.flip();
+        assertTrue(bytes.decode(array).exceptional());
+        // a truncated record ends the batch with the failure
+        ByteBuffer all = strings.encodeAll(Arrays.asList(Possibly.of("a"), Possibly.of("bc")));
+        all.limit(all.limit() - 1);
+        List<Possibly<String>> decoded = strings.decodeAll(all);
+        assertEquals(2, decoded.size());
+        assertEquals("a", decoded.get(0).getValue().get());
+        assertTrue(decoded.get(1).getException().get() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testException() {
+        System.out.println("exception");
+        PossiblyCodec<Integer> codec = PossiblyCodec.of(PossiblyCodec.INT, 2);
+        Exception e = new IOException("broken pipe");
+        ByteBuffer buf = codec.encode(Possibly.of(e));
+        assertEquals(codec.sizeOf(Possibly.of(e)), buf.remaining());
+        Exception decoded = codec.decode(buf).getException().get();
+        PossiblyCodec.DecodedException d = (PossiblyCodec.DecodedException)decoded;
+        assertEquals("java.io.IOException", d.getClassName());
+        assertEquals("broken pipe", d.getMessage());
+        assertEquals("java.io.IOException: broken pipe", d.toString());
+        assertEquals(2, d.getStackTrace().length);
+        assertEquals(e.getStackTrace()[0].toString(), d.getStackTrace()[0].toString());
+        Exception again = codec.decode(codec.encode(Possibly.of(d))).getException().get();
+        assertEquals("java.io.IOException", ((PossiblyCodec.DecodedException)again).getClassName());
+        PossiblyCodec<Integer> noFrames = PossiblyCodec.of(PossiblyCodec.INT);
+        Exception none = noFrames.decode(noFrames.encode(Possibly.of(new Exception()))).getException().get();
+        assertNull(none.getMessage());
+        assertEquals(0, none.getStackTrace().length);
+    }
+
+    @Test
+    public void testFileChannel() throws IOException {
+        System.out.println("fileChannel");
+        PossiblyCodec<Double> codec = PossiblyCodec.of(PossiblyCodec.DOUBLE, 1);
+        List<Possibly<Double>> values = Arrays.asList(Possibly.of(1.5),
+                Possibly.of(new IllegalStateException("bad")), Possibly.empty(), Possibly.of(2.5));
+        Path file = dir.resolve("results.bin");
+        ByteBuffer buf = codec.encodeAll(values);
+        assertTrue(buf.isDirect());
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            while(buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+        List<Possibly<Double>> result;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            result = codec.decodeAll(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        assertEquals(4, result.size());
+        assertEquals(1.5, result.get(0).getValue().get(), 0.0);
+        assertEquals("bad", result.get(1).getException().get().getMessage());
+        assertTrue(result.get(2).isEmpty());
+        assertEquals(2.5, result.get(3).getValue().get(), 0.0);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyCollectorsTest {
+    public static final String GOOD_VALUE = "good";
+    public static final String BAD_VALUE = "bad";
+    public PossiblyCollectorsTest() {
+    }
+
+    @Test
+    public void testPartitioning() {
+        System.out.println("partitioning");
+        PossiblyCollectors.Partition<String> partition = Stream.of(GOOD_VALUE, BAD_VALUE, GOOD_VALUE)
+                .map(PossiblyFunction.of(s -> mapWithException(s)))
+                .collect(PossiblyCollectors.partitioning());
+        assertEquals(Arrays.asList(GOOD_VALUE, GOOD_VALUE), partition.getValues());
+        assertEquals(1, partition.getExceptions().size());
+        assertEquals("bad value", partition.getExceptions().get(0).getMessage());
+        assertEquals(0, partition.getEmpty());
+    }
+
+    @Test
+    public void testPartitioningConcurrent() {
+        System.out.println("partitioningConcurrent");
+        PossiblyCollectors.Partition<Integer> partition = IntStream.range(0, 100_000)
+                .parallel()
+                .boxed()
+                .map(PossiblyFunction.of(i -> oddWithException(i)))
+                .collect(PossiblyCollectors.partitioningConcurrent());
+        assertEquals(50_000, partition.getValues().size());
+        assertEquals(50_000, partition.getExceptions().size());
+        List<Integer> values = partition.getValues();
+        Collections.sort(values);
+        assertEquals(0, values.get(0));
+        assertEquals(99_998, values.get(values.size() - 1));
+    }
+
+    @Test
+    public void testCounting() {
+        System.out.println("counting");
+        PossiblyCollectors.Counts counts = Stream.of(Possibly.of(GOOD_VALUE),
+                Possibly.<String>of(new Exception(BAD_VALUE)), Possibly.<String>empty())
+                .collect(PossiblyCollectors.counting());
+        assertEquals(1, counts.getValues());
+        assertEquals(1, counts.getExceptions());
+        assertEquals(1, counts.getEmpty());
+        counts = IntStream.range(0, 100_000)
+                .parallel()
+                .boxed()
+                .map(PossiblyFunction.of(i -> oddWithException(i)))
+                .collect(PossiblyCollectors.countingConcurrent());
+        assertEquals(50_000, counts.getValues());
+        assertEquals(50_000, counts.getExceptions());
+        assertEquals(0, counts.getEmpty());
+    }
+
+
+    @Test
+    public void testSummarizingExceptions() {
+        System.out.println("summarizingExceptions");
+        PossiblyCollectors.ExceptionSummary summary = IntStream.range(0, 100_000)
+                .parallel()
+                .boxed()
+                .map(PossiblyFunction.of(i -> classifyWithException(i)))
+                .collect(PossiblyCollectors.summarizingExceptions(3));
+        assertEquals(80_000, summary.getTotal());
+        List<PossiblyCollectors.ExceptionSignature> signatures = summary.getSignatures();
+        assertEquals(3, signatures.size());
+        PossiblyCollectors.ExceptionSignature top = signatures.get(0);
+        assertEquals(IllegalStateException.class.getName(), top.getType());
+        assertEquals("id # timed out after #ms", top.getMessage());
+        assertTrue(top.getCount() >= 50_000 && top.getCount() - top.getError() <= 50_000);
+        assertEquals("classifyWithException", top.getFrames().get(0).getMethodName());
+        assertTrue(top.getExemplar() instanceof IllegalStateException);
+        assertEquals("java.io.IOException", signatures.get(1).getType());
+        assertEquals("io #", signatures.get(1).getMessage());
+        assertTrue(signatures.get(1).getCount() >= 20_000);
+        assertEquals(Exception.class.getName(), signatures.get(2).getType());
+        assertThrows(IllegalArgumentException.class, () -> PossiblyCollectors.summarizingExceptions(0));
+    }
+    
+    @Test
+    public void testSummarizingExceptionsMerge() {
+        System.out.println("summarizingExceptionsMerge");
+        Collector<Possibly<Integer>, Object, PossiblyCollectors.ExceptionSummary> collector =
+                summarizing(2);
+        Possibly<Integer> a = Possibly.of(new IllegalStateException("A"));
+        Possibly<Integer> b = Possibly.of(new IllegalStateException("B"));
+        Possibly<Integer> c = Possibly.of(new IllegalStateException("C"));
+        Object left = collector.supplier().get();
+        for(int i = 0; i < 5; i++) {
+            collector.accumulator().accept(left, a);
+        }
+        Object right = collector.supplier().get();
+        collector.accumulator().accept(right, a);
+        for(int i = 0; i < 3; i++) {
+            collector.accumulator().accept(right, b);
+        }
+        for(int i = 0; i < 3; i++) {
+            collector.accumulator().accept(right, c);
+        }
+        PossiblyCollectors.ExceptionSummary summary = collector.finisher().apply(
+                collector.combiner().apply(left, right));
+        assertEquals(12, summary.getTotal());
+        PossiblyCollectors.ExceptionSignature top = summary.getSignatures().get(0);
+        assertEquals("A", top.getMessage());
+        assertTrue(top.getCount() >= 6);
+        assertTrue(top.getCount() - top.getError() <= 6);
+    }
+
+    @Test
+    public void testSummarizingExceptionsEviction() {
+        System.out.println("summarizingExceptionsEviction");
+        PossiblyCollectors.ExceptionSummary summary = IntStream.range(0, 20_000)
+                .mapToObj(i -> Possibly.<Integer>of(new IllegalStateException(
+                        i % 3 == 0 ? "heavy" : letters(i))))
+                .collect(PossiblyCollectors.summarizingExceptions(4));
+        assertEquals(20_000, summary.getTotal());
+        assertEquals(4, summary.getSignatures().size());
+        PossiblyCollectors.ExceptionSignature top = summary.getSignatures().get(0);
+        assertEquals("heavy", top.getMessage());
+        assertTrue(top.getCount() >= 6_667 && top.getCount() - top.getError() <= 6_667);
+    }
+
+    private static String letters(int i) {
+        StringBuilder sb = new StringBuilder();
+        do {
+            sb.append((char)('a' + i % 26));
+            i /= 26;
+        } while(i > 0);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collector<Possibly<Integer>, Object, PossiblyCollectors.ExceptionSummary> summarizing(int k) {
+        return (Collector<Possibly<Integer>, Object, PossiblyCollectors.ExceptionSummary>)
+                (Collector<Possibly<Integer>, ?, PossiblyCollectors.ExceptionSummary>)
+                PossiblyCollectors.<Integer>summarizingExceptions(k);
+    }
+
+    private String mapWithException(String value) throws Exception {
+        if("bad".equals(value)) {
+            throw new Exception("bad value");
+        }
+        return value;
+    }
+
+    private Integer classifyWithException(Integer value) throws Exception {
+        if((value & 1) == 1) {
+            throw new IllegalStateException("id " + value + " timed out after 30ms");
+        }
+        if(value % 5 == 0) {
+            throw new Exception("not allowed");
+        }
+        if(value % 4 == 0) {
+            throw new java.io.IOException("io " + (value % 1000));
+        }
+        return value;
+    }
+
+    private Integer oddWithException(Integer value) throws Exception {
+        if((value & 1) == 1) {
+            throw new Exception("odd number");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyConcurrencyLimiterTest {
+    public PossiblyConcurrencyLimiterTest() {
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        System.out.println("reject");
+        PossiblyConcurrencyLimiter limiter = PossiblyConcurrencyLimiter.of(2, 10, Duration.ofSeconds(10));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        PossiblySupplier<String> blocked = PossiblySupplier.of(limiter.wrap(() -> {
+            started.countDown();
+            release.await();
+            return "done";
+        }));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Possibly<String>> first = executor.submit(blocked::get);
+            Future<Possibly<String>> second = executor.submit(blocked::get);
+            started.await();
+            assertEquals(2, limiter.getInFlight());
+            Exception e = PossiblySupplier.of(limiter.wrap(() -> "over")).get().getException().get();
+            assertTrue(e instanceof PossiblyConcurrencyLimiter.LimitExceededException);
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals(1, limiter.getRejected());
+            release.countDown();
+            assertEquals("done", first.get().getValue().get());
+            assertEquals("done", second.get().getValue().get());
+            assertEquals(0, limiter.getInFlight());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIncrease() {
+        System.out.println("increase");
+        PossiblyConcurrencyLimiter limiter = PossiblyConcurrencyLimiter.of(1, 4, Duration.ofSeconds(10));
+        PossiblyFunction<String, String> f = PossiblyFunction.of(limiter.wrap(s -> call(s)));
+        for(int i = 0; i < 100; i++) {
+            assertTrue(f.apply("fast").is());
+        }
+        // with one call at a time the limit stops growing once it is over 2
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecrease() throws Exception {
+        System.out.println("decrease");
+        PossiblyConcurrencyLimiter limiter = PossiblyConcurrencyLimiter.of(10, 20, Duration.ofMillis(20));
+        PossiblyFunction<String, String> f = PossiblyFunction.of(limiter.wrap(s -> call(s)));
+        assertTrue(f.apply("fast").is());
+        assertEquals(10, limiter.getLimit());
+        assertTrue(f.apply("fail").exceptional());
+        assertEquals(9, limiter.getLimit());
+        // a second failure within the threshold is the same signal
+        assertTrue(f.apply("fail").exceptional());
+        assertEquals(9, limiter.getLimit());
+        Thread.sleep(25);
+        assertEquals("fast", f.apply("slow").getValue().get());
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void testErrorReleases() {
+        System.out.println("errorReleases");
+        PossiblyConcurrencyLimiter limiter = PossiblyConcurrencyLimiter.of(1, 4, Duration.ofSeconds(10));
+        PossiblySupplier.ExceptionSupplier<String> s = limiter.wrap(() -> {
+            throw new AssertionError("error");
+        });
+        assertThrows(AssertionError.class, () -> s.get());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("fast", PossiblyFunction.of(limiter.wrap((String v) -> call(v))).apply("fast").getValue().get());
+    }
+
+    @Test
+    public void testBadLimits() {
+        System.out.println("badLimits");
+        assertThrows(IllegalArgumentException.class,
+                () -> PossiblyConcurrencyLimiter.of(0, 10, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> PossiblyConcurrencyLimiter.of(10, 5, Duration.ofSeconds(1)));
+    }
+
+    public String call(String s) throws Exception {
+        if("fail".equals(s)) {
+            throw new Exception("failed");
+        }
+        if("slow".equals(s)) {
+            Thread.sleep(30);
+        }
+        return "fast";
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyDeadLetterLogTest {
+    @TempDir
+    public Path dir;
+
+    public PossiblyDeadLetterLogTest() {
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        System.out.println("recordAndReplay");
+        try(PossiblyDeadLetterLog<String> log = PossiblyDeadLetterLog.of(dir, PossiblyDeadLetterLogTest::encode)) {
+            PossiblyFunction<String, Integer> f = PossiblyFunction.of(log.wrap(s -> parse(s)));
+            List<Possibly<Integer>> results = Stream.of("1", "two", "3", "four")
+                    .map(f)
+                    .collect(Collectors.toList());
+            assertTrue(results.get(1).exceptional());
+            PossiblyConsumer.of(log.wrapConsumer(s -> parse(s))).accept("five");
+            log.flush();
+            List<PossiblyDeadLetterLog.DeadLetter> letters;
+            try(Stream<PossiblyDeadLetterLog.DeadLetter> stream = log.read()) {
+                letters = stream.collect(Collectors.toList());
+            }
+            assertEquals(3, letters.size());
+            assertEquals("two", decode(letters.get(0).getInput()));
+            assertEquals("java.lang.NumberFormatException: For input string: \"two\"",
+                    letters.get(0).getSummary());
+            assertTrue(letters.get(0).getInput().isReadOnly());
+            assertTrue(letters.get(2).getTimestamp() > 0);
+            List<Possibly<String>> replayed = log.replay(b -> decode(b).toUpperCase())
+                    .collect(Collectors.toList());
+            assertEquals("FOUR", replayed.get(1).getValue().get());
+            assertEquals(0, log.getDropped());
+        }
+    }
+
+    @Test
+    public void testSegments() throws Exception {
+        System.out.println("segments");
+        try(PossiblyDeadLetterLog<String> log = PossiblyDeadLetterLog.of(dir,
+                PossiblyDeadLetterLogTest::encode, 100000, 1024)) {
+            IntStream.range(0, 1000).parallel()
+                    .forEach(i -> log.record(Integer.toString(i), new Exception("failed")));
+        }
+        try(Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 10);
+        }
+        assertEquals(499500, PossiblyDeadLetterLog.read(dir)
+                .mapToInt(d -> Integer.parseInt(decode(d.getInput())))
+                .sum());
+        // a new log starts after the existing segments
+        try(PossiblyDeadLetterLog<String> log = PossiblyDeadLetterLog.of(dir, PossiblyDeadLetterLogTest::encode)) {
+            log.record("last", new Exception("failed"));
+        }
+        List<PossiblyDeadLetterLog.DeadLetter> letters = PossiblyDeadLetterLog.read(dir).collect(Collectors.toList());
+        assertEquals(1001, letters.size());
+        assertEquals("last", decode(letters.get(1000).getInput()));
+    }
+
+    @Test
+    public void testClosed() throws Exception {
+        System.out.println("closed");
+        PossiblyDeadLetterLog<String> log = PossiblyDeadLetterLog.of(dir,
+                PossiblyDeadLetterLogTest::encode, 1, 1024);
+        log.close();
+        assertFalse(log.record("closed", new Exception("failed")));
+        assertFalse(log.record("closed", new Exception("failed")));
+        assertEquals(2, log.getDropped());
+        // a flush after close returns at once
+        log.flush();
+    }
+
+    @Test
+    public void testRaceClose() throws Exception {
+        System.out.println("raceClose");
+        PossiblyDeadLetterLog<String> log = PossiblyDeadLetterLog.of(dir,
+                PossiblyDeadLetterLogTest::encode, 1000000, 64 * 1024);
+        Thread recorder = new Thread(() -> {
+            for(int i = 0; i < 100000; i++) {
+                log.record(Integer.toString(i), new Exception("failed"));
+            }
+        });
+        recorder.start();
+        Thread.sleep(5);
+        log.close();
+        recorder.join();
+        // every entry is either written or counted as dropped
+        assertEquals(100000, PossiblyDeadLetterLog.read(dir).count() + log.getDropped());
+    }
+
+    public static byte[] encode(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String decode(ByteBuffer b) {
+        return StandardCharsets.UTF_8.decode(b).toString();
+    }
+
+    public Integer parse(String s) throws Exception {
+        return Integer.valueOf(s);
+    }
+}
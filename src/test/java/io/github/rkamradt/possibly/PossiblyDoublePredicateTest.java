@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.DoubleStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyDoublePredicateTest {
+    public PossiblyDoublePredicateTest() {
+    }
+
+    @Test
+    public void testTest() {
+        System.out.println("test");
+        AtomicReference<Exception> ex = new AtomicReference<>();
+        assertEquals(2, DoubleStream.of(1, 2, 3)
+                .filter(PossiblyDoublePredicate.of(v -> testWithException(v), e -> ex.set(e)))
+                .sum());
+        assertEquals("bad value", ex.get().getMessage());
+        assertEquals(2, DoubleStream.of(1, 2, 3)
+                .filter(PossiblyDoublePredicate.of(v -> testWithException(v)))
+                .sum());
+    }
+    
+    private boolean testWithException(double value) throws Exception {
+        if(value == 3) {
+            throw new Exception("bad value");
+        }
+        return value % 2 == 0;
+    }
+}
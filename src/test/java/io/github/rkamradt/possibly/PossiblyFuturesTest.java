@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyFuturesTest {
+    public PossiblyFuturesTest() {
+    }
+
+    @Test
+    public void testThenApplyPossibly() {
+        System.out.println("thenApplyPossibly");
+        CompletableFuture<Possibly<String>> good = CompletableFuture.completedFuture(Possibly.of("12"));
+        assertEquals(12, PossiblyFutures.thenApplyPossibly(good, s -> parse(s)).join().getValue().get());
+        CompletableFuture<Possibly<String>> bad = CompletableFuture.completedFuture(Possibly.of("x"));
+        assertTrue(PossiblyFutures.thenApplyPossibly(bad, s -> parse(s)).join().exceptional());
+        Exception expected = new Exception("test");
+        CompletableFuture<Possibly<String>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(expected);
+        assertEquals(expected, PossiblyFutures.thenApplyPossibly(failed, s -> parse(s))
+                .join().getException().get());
+        assertEquals(expected, PossiblyFutures.recover(failed).join().getException().get());
+        CompletableFuture<Possibly<String>> nothing = CompletableFuture.completedFuture(null);
+        assertTrue(PossiblyFutures.thenApplyPossibly(nothing, s -> parse(s)).join().exceptional());
+        Possibly<Integer> error = PossiblyFutures.<String, Integer>thenApplyPossibly(good, s -> {
+            throw new AssertionError("error");
+        }).join();
+        assertTrue(error.getException().get().getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void testAllOf() {
+        System.out.println("allOf");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Possibly<Integer>>> futures = IntStream.range(0, 100)
+                    .mapToObj(i -> i % 10 == 0 ? "x" : String.valueOf(i))
+                    .map(PossiblyAsyncFunction.of(s -> s, executor))
+                    .map(f -> PossiblyFutures.thenApplyPossiblyAsync(f, s -> parse(s), executor))
+                    .collect(Collectors.toList());
+            List<Possibly<Integer>> list = PossiblyFutures.allOf(futures).join();
+            assertEquals(100, list.size());
+            assertTrue(list.get(0).exceptional());
+            assertEquals(1, list.get(1).getValue().get());
+            assertEquals(10, list.stream().filter(Possibly::exceptional).count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private Integer parse(String value) throws Exception {
+        if("x".equals(value)) {
+            throw new Exception("not a number");
+        }
+        return Integer.valueOf(value);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyHedgeTest {
+    public ExecutorService executor;
+    public AtomicInteger calls = new AtomicInteger();
+    public CountDownLatch interrupted = new CountDownLatch(1);
+
+    public PossiblyHedgeTest() {
+    }
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testHedgeWins() throws Exception {
+        System.out.println("hedgeWins");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ofMillis(20));
+        long start = System.nanoTime();
+        Possibly<String> p = PossiblySupplier.of(hedge.wrap(() -> slowFirst())).get();
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertEquals("call 2", p.getValue().get());
+        assertTrue(elapsed < 1000, "elapsed " + elapsed);
+        assertEquals(1, hedge.getHedges());
+        // the losing first call is interrupted
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCallerRuns() throws Exception {
+        System.out.println("callerRuns");
+        ThreadPoolExecutor callerRuns = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            PossiblyHedge hedge = PossiblyHedge.of(callerRuns, Duration.ofMillis(20));
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+            Possibly<String> p = hedge.getAsync(() -> {
+                threads.add(Thread.currentThread().getName());
+                if(calls.incrementAndGet() == 1) {
+                    Thread.sleep(500);
+                }
+                return "call " + calls.get();
+            }).get(1, TimeUnit.SECONDS);
+            assertEquals("call 2", p.getValue().get());
+            // the rejected hedge ran on the thread that submitted it, not the timer
+            assertEquals(2, threads.size());
+            assertNotEquals("possibly-timer", threads.get(1));
+        } finally {
+            callerRuns.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testError() throws Exception {
+        System.out.println("error");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ofSeconds(10));
+        Possibly<String> p = hedge.<String>getAsync(() -> {
+            throw new AssertionError("error");
+        }).get(1, TimeUnit.SECONDS);
+        assertTrue(p.getException().get().getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void testInterrupted() {
+        System.out.println("interrupted");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ofSeconds(10));
+        Thread.currentThread().interrupt();
+        Possibly<String> p = PossiblySupplier.of(hedge.wrap(() -> {
+            Thread.sleep(1000);
+            return "value";
+        })).get();
+        assertTrue(p.getException().get() instanceof InterruptedException);
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void testNoHedge() throws Exception {
+        System.out.println("noHedge");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ofSeconds(10));
+        PossiblyFunction<String, String> f = PossiblyFunction.of(hedge.wrap(s -> fail(s)));
+        assertEquals("good", f.apply("good").getValue().get());
+        assertEquals("failed", f.apply("bad").getException().get().getMessage());
+        assertEquals(0, hedge.getHedges());
+        assertEquals("good", hedge.applyAsync(s -> fail(s), "good").get().getValue().get());
+    }
+
+    @Test
+    public void testBothFail() throws Exception {
+        System.out.println("bothFail");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ZERO);
+        Possibly<String> p = hedge.<String>getAsync(() -> {
+            Thread.sleep(50);
+            throw new Exception("failed " + calls.incrementAndGet());
+        }).get();
+        assertTrue(p.exceptional());
+        assertEquals(1, hedge.getHedges());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        System.out.println("budget");
+        PossiblyHedge hedge = PossiblyHedge.of(executor, Duration.ZERO).withBudget(0.0);
+        for(int i = 0; i < 15; i++) {
+            assertTrue(hedge.getAsync(() -> {
+                Thread.sleep(20);
+                return "slow";
+            }).get().is());
+        }
+        // only the burst of ten is allowed with no budget
+        assertEquals(10, hedge.getHedges());
+    }
+
+    @Test
+    public void testPercentile() throws Exception {
+        System.out.println("percentile");
+        PossiblyHedge hedge = PossiblyHedge.ofPercentile(executor, 0.9, Duration.ofSeconds(5));
+        assertEquals(Duration.ofSeconds(5).toNanos(), hedge.delayNanos());
+        for(int i = 0; i < 2000; i++) {
+            assertTrue(hedge.getAsync(() -> "fast").get().is());
+        }
+        assertTrue(hedge.delayNanos() < Duration.ofSeconds(1).toNanos());
+        assertThrows(IllegalArgumentException.class,
+                () -> PossiblyHedge.ofPercentile(executor, 1.5, Duration.ZERO));
+    }
+
+    public String slowFirst() throws Exception {
+        int call = calls.incrementAndGet();
+        if(call == 1) {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }
+        return "call " + call;
+    }
+
+    public String fail(String s) throws Exception {
+        if("bad".equals(s)) {
+            throw new Exception("failed");
+        }
+        return s;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyIntTest {
+    
+    public PossiblyIntTest() {
+    }
+
+    @Test
+    public void testIs() {
+        System.out.println("is");
+        PossiblyInt instance = PossiblyInt.of(2);
+        assertTrue(instance.is());
+        assertFalse(instance.exceptional());
+        assertFalse(instance.isEmpty());
+        assertEquals(2, instance.getValue().getAsInt());
+        assertEquals(2, instance.orElse(0));
+        assertFalse(instance.getException().isPresent());
+    }
+
+    @Test
+    public void testExceptional() {
+        System.out.println("exceptional");
+        Exception expected = new Exception("test");
+        PossiblyInt instance = PossiblyInt.of(expected);
+        assertTrue(instance.exceptional());
+        assertFalse(instance.is());
+        assertEquals(expected, instance.getException().get());
+        assertFalse(instance.getValue().isPresent());
+        assertEquals(0, instance.orElse(0));
+        AtomicReference<Exception> ex = new AtomicReference<>();
+        instance.doOnException(e -> ex.set(e));
+        assertEquals(expected, ex.get());
+        assertSame(instance, instance.map(v -> v * 2));
+        assertSame(instance, instance.filter(v -> true));
+        assertEquals(expected, instance.mapToObj(v -> "x").getException().get());
+        assertThrows(IllegalArgumentException.class, () -> PossiblyInt.of(null));
+    }
+
+    @Test
+    public void testIsEmpty() {
+        System.out.println("isEmpty");
+        PossiblyInt instance = PossiblyInt.empty();
+        assertTrue(instance.isEmpty());
+        assertTrue(PossiblyInt.of(2).filter(v -> v > 2).isEmpty());
+        assertSame(instance, instance.map(v -> v * 2));
+        assertTrue(instance.mapToObj(v -> "x").isEmpty());
+    }
+
+    @Test
+    public void testMap() {
+        System.out.println("map");
+        PossiblyInt instance = PossiblyInt.of(2);
+        assertEquals(4, instance.map(v -> v * 2).orElse(0));
+        assertEquals("2", instance.mapToObj(v -> String.valueOf(v).substring(0, 1)).getValue().get());
+        assertEquals(3, Possibly.of("abc").mapToInt(s -> s.length()).orElse(0));
+        assertTrue(Possibly.<String>of(new Exception("test")).mapToInt(s -> s.length()).exceptional());
+    }
+
+    @Test
+    public void testStream() {
+        System.out.println("stream");
+        assertEquals(2, PossiblyInt.of(2).stream().sum());
+        assertEquals(0, PossiblyInt.empty().stream().count());
+        assertEquals(0, PossiblyInt.of(new Exception("test")).stream().count());
+    }
+    
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyLongBufferTest {
+
+    public PossiblyLongBufferTest() {
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("add");
+        Exception failure = new IOException("fail");
+        PossiblyLongBuffer buffer = PossiblyLongBuffer.of();
+        buffer.add(Possibly.of(1L));
+        buffer.add(PossiblyLong.of(failure));
+        buffer.add(PossiblyLong.empty());
+        buffer.add(PossiblyLong.of(4L));
+        buffer.addValue(5L);
+        assertEquals(5, buffer.size());
+        assertEquals(1L, buffer.orElse(0, -1L));
+        assertEquals(-1L, buffer.orElse(1, -1L));
+        assertSame(failure, buffer.get(1).getException().get());
+        assertTrue(buffer.get(2).isEmpty());
+        assertEquals(4L, buffer.get(3).getValue().getAsLong());
+        assertEquals(10L, buffer.longs().sum());
+        assertEquals(1, buffer.failures().count());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.orElse(5, 0L));
+    }
+
+    @Test
+    public void testCollectParallel() {
+        System.out.println("collectParallel");
+        int count = PossiblyBuffer.CHUNK_SIZE * 7 + 5;
+        Exception failure = new Exception("fail");
+        PossiblyLongBuffer buffer = LongStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> i % 100 == 0 ? PossiblyLong.of(failure) : PossiblyLong.of(i))
+                .collect(PossiblyLongBuffer.primitiveCollector());
+        assertEquals(count, buffer.size());
+        for(int i = 0; i < count; i++) {
+            assertEquals(i % 100 == 0 ? -1L : i, buffer.orElse(i, -1L));
+        }
+        long expected = LongStream.range(0, count).filter(i -> i % 100 != 0).sum();
+        assertEquals(expected, buffer.longs().sum());
+        assertEquals(expected, buffer.longs().parallel().sum());
+        assertEquals((count + 99) / 100, buffer.failures().count());
+        PossiblyLongBuffer boxed = LongStream.range(0, 100)
+                .mapToObj(Possibly::of)
+                .collect(PossiblyLongBuffer.collector());
+        assertEquals(4950L, boxed.longs().sum());
+    }
+}
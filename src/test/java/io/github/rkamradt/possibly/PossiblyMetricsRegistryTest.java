@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyMetricsRegistryTest {
+    public PossiblyMetricsRegistryTest() {
+    }
+
+    @Test
+    public void testMetrics() {
+        System.out.println("metrics");
+        PossiblyMetricsRegistry registry = PossiblyMetricsRegistry.enabled();
+        PossiblyMetrics metrics = registry.metrics("one");
+        assertSame(metrics, registry.metrics("one"));
+        assertNotSame(metrics, registry.metrics("two"));
+        PossiblySupplier.of(metrics.wrap(() -> "value")).get();
+        List<PossiblyMetrics.Snapshot> snapshots = registry.getSnapshots();
+        assertEquals(2, snapshots.size());
+        assertEquals(1, snapshots.stream()
+                .filter(s -> s.getName().equals("one"))
+                .findFirst().get().getInvocations());
+    }
+
+    @Test
+    public void testRegisterMBeans() throws Exception {
+        System.out.println("registerMBeans");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        PossiblyMetricsRegistry registry = PossiblyMetricsRegistry.enabled();
+        PossiblyMetrics before = registry.metrics("registry.test.before");
+        registry.registerMBeans();
+        PossiblyMetrics after = registry.metrics("registry.test.after");
+        PossiblySupplier.of(after.wrap(() -> {
+            throw new IllegalStateException("failed");
+        })).get();
+        ObjectName beforeName = PossiblyMetricsRegistry.objectName(before.getName());
+        ObjectName afterName = PossiblyMetricsRegistry.objectName(after.getName());
+        try {
+            assertTrue(server.isRegistered(beforeName));
+            assertEquals(1L, server.getAttribute(afterName, "Invocations"));
+            assertEquals(1L, server.getAttribute(afterName, "Failures"));
+        } finally {
+            registry.unregisterMBeans();
+        }
+        assertFalse(server.isRegistered(beforeName));
+        assertFalse(server.isRegistered(afterName));
+        // metrics created while unregistered are not published
+        assertFalse(server.isRegistered(PossiblyMetricsRegistry.objectName(
+                registry.metrics("registry.test.later").getName())));
+    }
+
+    @Test
+    public void testRegisterConcurrently() throws Exception {
+        System.out.println("registerConcurrently");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        PossiblyMetricsRegistry registry = PossiblyMetricsRegistry.enabled();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PossiblyMetrics>> futures = new ArrayList<>();
+            for(int i = 0; i < 200; i++) {
+                String name = "registry.test.concurrent." + i;
+                futures.add(executor.submit(() -> registry.metrics(name)));
+                if(i == 100) {
+                    registry.registerMBeans();
+                }
+            }
+            for(Future<PossiblyMetrics> f : futures) {
+                assertTrue(server.isRegistered(PossiblyMetricsRegistry.objectName(f.get().getName())));
+            }
+        } finally {
+            executor.shutdown();
+            registry.unregisterMBeans();
+        }
+    }
+
+    @Test
+    public void testConflict() throws Exception {
+        System.out.println("conflict");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        PossiblyMetricsRegistry first = PossiblyMetricsRegistry.enabled();
+        PossiblyMetricsRegistry second = PossiblyMetricsRegistry.enabled();
+        first.metrics("registry.test.shared");
+        second.metrics("registry.test.other");
+        second.metrics("registry.test.shared");
+        first.registerMBeans();
+        try {
+            assertThrows(InstanceAlreadyExistsException.class, () -> second.registerMBeans());
+            // the second registry took back what it had registered
+            assertFalse(server.isRegistered(PossiblyMetricsRegistry.objectName("registry.test.other")));
+            assertTrue(server.isRegistered(PossiblyMetricsRegistry.objectName("registry.test.shared")));
+        } finally {
+            first.unregisterMBeans();
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        System.out.println("disabled");
+        PossiblyMetricsRegistry registry = PossiblyMetricsRegistry.disabled();
+        registry.registerMBeans();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                PossiblyMetricsRegistry.objectName(registry.metrics("disabled.test").getName())));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyMetricsTest {
+    public PossiblyMetricsTest() {
+    }
+
+    @Test
+    public void testWrapFunction() {
+        System.out.println("wrapFunction");
+        PossiblyMetrics metrics = PossiblyMetricsRegistry.enabled().metrics("test");
+        PossiblyFunction<String, Integer> f = PossiblyFunction.of(metrics.wrap(s -> lengthWithException(s)));
+        long values = Stream.of("one", "bad", "three", "io")
+                .map(f)
+                .filter(Possibly::is)
+                .count();
+        assertEquals(2, values);
+        assertEquals(4, metrics.getInvocations());
+        assertEquals(2, metrics.getFailures());
+        assertEquals(Long.valueOf(1), metrics.getFailuresByType().get(Exception.class.getName()));
+        assertEquals(Long.valueOf(1), metrics.getFailuresByType().get(IOException.class.getName()));
+        PossiblyMetrics.Snapshot snapshot = metrics.getSnapshot();
+        assertEquals("test", snapshot.getName());
+        assertEquals(4, snapshot.getInvocations());
+        assertTrue(snapshot.getLatencyPercentileNanos(0.5) > 0);
+        f.apply("again");
+        assertEquals(4, snapshot.getInvocations());
+        assertEquals(5, metrics.getInvocations());
+    }
+
+    @Test
+    public void testWrapOthers() {
+        System.out.println("wrapOthers");
+        PossiblyMetrics metrics = PossiblyMetricsRegistry.enabled().metrics("test");
+        PossiblySupplier.of(metrics.wrap(() -> lengthWithException("bad"))).get();
+        PossiblyConsumer.of(metrics.wrapConsumer((String s) -> lengthWithException(s))).accept("good");
+        PossiblyPredicate.of(metrics.wrapPredicate((String s) -> lengthWithException(s) > 3)).test("io");
+        assertEquals(3, metrics.getInvocations());
+        assertEquals(2, metrics.getFailures());
+    }
+
+    @Test
+    public void testDisabled() {
+        System.out.println("disabled");
+        PossiblyMetrics metrics = PossiblyMetricsRegistry.disabled().metrics("test");
+        PossiblyFunction.ExceptionFunction<String, Integer> f = s -> lengthWithException(s);
+        assertFalse(metrics.isEnabled());
+        assertSame(f, metrics.wrap(f));
+        PossiblyFunction.of(metrics.wrap(f)).apply("bad");
+        assertEquals(0, metrics.getInvocations());
+        assertEquals(0, metrics.getFailures());
+    }
+
+    @Test
+    public void testHistogram() {
+        System.out.println("histogram");
+        for(long value = 0; value < 100000; value += 7) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value);
+        }
+        assertTrue(LatencyHistogram.index(Long.MAX_VALUE) < LatencyHistogram.BUCKETS);
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.count());
+        long median = histogram.percentile(0.5);
+        assertTrue(median >= 500000 && median <= 500000 * 5 / 4, "median " + median);
+        long top = histogram.percentile(1.0);
+        assertTrue(top >= 1000000 && top <= 1000000 * 5 / 4, "top " + top);
+    }
+
+    public Integer lengthWithException(String s) throws Exception {
+        if("bad".equals(s)) {
+            throw new Exception("bad value");
+        }
+        if("io".equals(s)) {
+            throw new IOException("io value");
+        }
+        return s.length();
+    }
+}
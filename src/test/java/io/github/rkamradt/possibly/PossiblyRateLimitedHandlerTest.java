@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyRateLimitedHandlerTest {
+    public PossiblyRateLimitedHandlerTest() {
+    }
+    public AtomicInteger handled = new AtomicInteger();
+    public List<String> summaries = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testLimit() throws Exception {
+        System.out.println("limit");
+        PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                e -> handled.incrementAndGet(), 3, Duration.ofMillis(100), summaries::add);
+        PossiblyConsumer<String> consumer = PossiblyConsumer.of(s -> fail(s), handler);
+        for(int i = 0; i < 1234; i++) {
+            consumer.accept(i % 2 == 0 ? "io" : "state");
+        }
+        assertEquals(3, handled.get());
+        assertEquals(1231, handler.getSuppressed());
+        assertTrue(summaries.isEmpty());
+        Thread.sleep(150);
+        consumer.accept("io");
+        assertEquals(4, handled.get());
+        assertEquals(2, summaries.size());
+        assertTrue(summaries.stream().anyMatch(s -> s.startsWith("615 java.io.IOException suppressed in last ")));
+        assertTrue(summaries.stream().anyMatch(s -> s.startsWith("616 java.lang.IllegalStateException suppressed in last ")));
+    }
+
+    @Test
+    public void testFlush() {
+        System.out.println("flush");
+        PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                e -> handled.incrementAndGet(), 0, Duration.ofSeconds(10), summaries::add);
+        PossiblyPredicate<String> predicate = PossiblyPredicate.of(s -> fail(s) > 0, handler);
+        assertFalse(predicate.test("io"));
+        handler.flush();
+        assertEquals(0, handled.get());
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).startsWith("1 java.io.IOException suppressed in last "));
+        handler.flush();
+        assertEquals(1, summaries.size());
+    }
+
+    @Test
+    public void testQuiet() throws Exception {
+        System.out.println("quiet");
+        PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                e -> handled.incrementAndGet(), 1, Duration.ofMillis(50), summaries::add);
+        handler.accept(new IOException("io"));
+        handler.accept(new Exception("anonymous") { });
+        assertEquals(1, handled.get());
+        Thread.sleep(200);
+        // no failure follows, the summary is sent when the window ends
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).startsWith("1 io.github.rkamradt.possibly.PossiblyRateLimitedHandlerTest$"));
+        handler.flush();
+        assertEquals(1, summaries.size());
+    }
+
+    @Test
+    public void testQuietExecutor() throws Exception {
+        System.out.println("quietExecutor");
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "summary"));
+        try {
+            PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                    e -> handled.incrementAndGet(), 0, Duration.ofMillis(50),
+                    s -> summaries.add(Thread.currentThread().getName()), executor);
+            handler.accept(new IOException("io"));
+            Thread.sleep(200);
+            // the summary is sent on the executor, not the timer thread
+            assertEquals(Collections.singletonList("summary"), summaries);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        System.out.println("close");
+        try(PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                e -> handled.incrementAndGet(), 0, Duration.ofSeconds(10), summaries::add)) {
+            handler.accept(new IOException("io"));
+            assertTrue(summaries.isEmpty());
+        }
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).startsWith("1 java.io.IOException suppressed in last "));
+    }
+
+    @Test
+    public void testConcurrent() {
+        System.out.println("concurrent");
+        PossiblyRateLimitedHandler handler = PossiblyRateLimitedHandler.of(
+                e -> handled.incrementAndGet(), 10, Duration.ofSeconds(60), summaries::add);
+        IntStream.range(0, 100000).parallel()
+                .forEach(i -> handler.accept(new IOException("io")));
+        assertEquals(10, handled.get());
+        assertEquals(99990, handler.getSuppressed());
+        handler.flush();
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).startsWith(String.format("%,d java.io.IOException", 99990)));
+    }
+
+    public int fail(String s) throws Exception {
+        if("io".equals(s)) {
+            throw new IOException("io failure");
+        }
+        throw new IllegalStateException("state failure");
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyRecordSourceTest {
+    @TempDir
+    public Path dir;
+
+    public PossiblyRecordSourceTest() {
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        System.out.println("lines");
+        Path path = dir.resolve("lines.txt");
+        Files.write(path, "1\r\n22\nbad\n\n4444".getBytes(StandardCharsets.UTF_8));
+        try(Stream<Possibly<Integer>> stream = PossiblyRecordSource.lines(path, b -> parse(b), 8)) {
+            List<Possibly<Integer>> list = stream.collect(Collectors.toList());
+            assertEquals(5, list.size());
+            assertEquals(1, list.get(0).getValue().get());
+            assertEquals(22, list.get(1).getValue().get());
+            PossiblyRecordSource.RecordException e =
+                    (PossiblyRecordSource.RecordException)list.get(2).getException().get();
+            assertEquals(6, e.getOffset());
+            assertTrue(e.getCause() instanceof NumberFormatException);
+            assertTrue(list.get(3).exceptional());
+            assertEquals(4444, list.get(4).getValue().get());
+        }
+    }
+
+    @Test
+    public void testNullRecord() throws Exception {
+        System.out.println("nullRecord");
+        Path path = dir.resolve("null.txt");
+        Files.write(path, "1\nskip\n3".getBytes(StandardCharsets.UTF_8));
+        try(Stream<Possibly<Integer>> stream = PossiblyRecordSource.lines(path,
+                b -> b.get(0) == 's' ? null : parse(b))) {
+            List<Possibly<Integer>> list = stream.collect(Collectors.toList());
+            assertEquals(3, list.size());
+            PossiblyRecordSource.RecordException e =
+                    (PossiblyRecordSource.RecordException)list.get(1).getException().get();
+            assertEquals(2, e.getOffset());
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testLinesParallel() throws Exception {
+        System.out.println("linesParallel");
+        Path path = dir.resolve("parallel.txt");
+        try(OutputStream out = Files.newOutputStream(path)) {
+            for(int i = 0; i < 100000; i++) {
+                out.write(((i % 1000 == 0 ? "x" : "") + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        try(Stream<Possibly<Integer>> stream = PossiblyRecordSource.lines(path, b -> parse(b), 4096)) {
+            PossiblyCollectors.Partition<Integer> partition = stream.parallel()
+                    .collect(PossiblyCollectors.partitioning());
+            assertEquals(99900, partition.getValues().size());
+            assertEquals(100, partition.getExceptions().size());
+            assertEquals(1, partition.getValues().get(0));
+            assertEquals(99999, partition.getValues().get(99899));
+            assertEquals(99999L * 100000 / 2 - 1000L * 99 * 100 / 2,
+                    partition.getValues().stream().mapToLong(i -> i).sum());
+        }
+    }
+
+    @Test
+    public void testLengthPrefixed() throws Exception {
+        System.out.println("lengthPrefixed");
+        Path path = dir.resolve("records.bin");
+        try(DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            for(int i = 0; i < 20000; i++) {
+                byte[] bytes = ((i == 500 ? "bad" : "") + i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(100);
+        }
+        try(Stream<Possibly<Integer>> stream = PossiblyRecordSource.lengthPrefixed(path, b -> parse(b), 1024)) {
+            List<Possibly<Integer>> list = stream.parallel().collect(Collectors.toList());
+            assertEquals(20001, list.size());
+            assertEquals(499, list.get(499).getValue().get());
+            assertTrue(list.get(500).exceptional());
+            assertEquals(19999, list.get(19999).getValue().get());
+            PossiblyRecordSource.RecordException e =
+                    (PossiblyRecordSource.RecordException)list.get(20000).getException().get();
+            assertEquals(Files.size(path) - 4, e.getOffset());
+        }
+    }
+
+    @Test
+    public void testNoCopy() throws Exception {
+        System.out.println("noCopy");
+        Path path = dir.resolve("view.txt");
+        Files.write(path, Arrays.asList("one", "two"));
+        try(Stream<Possibly<ByteBuffer>> stream = PossiblyRecordSource.lines(path, b -> b)) {
+            List<ByteBuffer> views = stream.map(p -> p.getValue().get()).collect(Collectors.toList());
+            assertEquals(2, views.size());
+            assertTrue(views.get(1).isReadOnly());
+            assertFalse(views.get(1).hasArray());
+            assertEquals(3, views.get(1).remaining());
+            assertEquals('t', views.get(1).get(0));
+        }
+    }
+
+    public Integer parse(ByteBuffer buffer) throws Exception {
+        return Integer.valueOf(StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyRetryTest {
+    public PossiblyRetryTest() {
+    }
+    public AtomicInteger state = new AtomicInteger(0);
+    private final PossiblyRetry retry = PossiblyRetry.of(4)
+            .withBackoff(Duration.ofMillis(1), Duration.ofMillis(5))
+            .retryOn(e -> e instanceof IOException);
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        PossiblyRetry.Result<Integer> result = retry.get(() -> failTwice());
+        assertEquals(2, result.getPossibly().getValue().get());
+        assertEquals(3, result.getAttempts());
+    }
+
+    @Test
+    public void testGetExhausted() {
+        System.out.println("getExhausted");
+        PossiblyRetry.Result<Integer> result = retry.get(() -> {
+            throw new IOException("always");
+        });
+        assertEquals("always", result.getPossibly().getException().get().getMessage());
+        assertEquals(4, result.getAttempts());
+    }
+
+    @Test
+    public void testGetNotRetryable() {
+        System.out.println("getNotRetryable");
+        PossiblyRetry.Result<Integer> result = retry.get(() -> {
+            throw new Exception("not retryable");
+        });
+        assertTrue(result.getPossibly().exceptional());
+        assertEquals(1, result.getAttempts());
+    }
+
+    @Test
+    public void testWrap() {
+        System.out.println("wrap");
+        Possibly<Integer> p = PossiblySupplier.of(retry.wrap(() -> failTwice())).get();
+        assertEquals(2, p.getValue().get());
+        Possibly<String> f = PossiblyFunction.of(retry.<String, String>wrap(s -> {
+            throw new IOException(s);
+        })).apply("bad");
+        assertEquals("bad", f.getException().get().getMessage());
+    }
+
+    @Test
+    public void testGetAsync() {
+        System.out.println("getAsync");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            PossiblyRetry.Result<Integer> result = retry.getAsync(() -> failTwice(), scheduler).join();
+            assertEquals(2, result.getPossibly().getValue().get());
+            assertEquals(3, result.getAttempts());
+            PossiblyRetry.Result<String> failed = retry.<String, String>applyAsync(s -> {
+                throw new IOException(s);
+            }, "bad", scheduler).join();
+            assertEquals(4, failed.getAttempts());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testInterrupted() {
+        System.out.println("interrupted");
+        PossiblyRetry.Result<Integer> result = PossiblyRetry.of(4)
+                .withBackoff(Duration.ofMillis(1), Duration.ofMillis(5))
+                .get(() -> {
+                    state.incrementAndGet();
+                    throw new InterruptedException("cancelled");
+                });
+        try {
+            assertTrue(Thread.currentThread().isInterrupted());
+            assertTrue(result.getPossibly().getException().get() instanceof InterruptedException);
+            assertEquals(1, result.getAttempts());
+            assertEquals(1, state.get());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testInterruptedAsync() throws Exception {
+        System.out.println("interruptedAsync");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CountDownLatch registered = new CountDownLatch(1);
+            CompletableFuture<PossiblyRetry.Result<Integer>> result = retry.getAsync(() -> {
+                registered.await();
+                throw new InterruptedException("cancelled");
+            }, scheduler);
+            CompletableFuture<Boolean> interrupted = result.thenApply(r -> Thread.currentThread().isInterrupted());
+            registered.countDown();
+            // the scheduler thread is not left interrupted for what runs next
+            assertFalse(interrupted.join());
+            assertTrue(result.join().getPossibly().getException().get() instanceof InterruptedException);
+            assertEquals(1, result.join().getAttempts());
+            assertFalse(Thread.currentThread().isInterrupted());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncError() {
+        System.out.println("asyncError");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CompletableFuture<PossiblyRetry.Result<Integer>> result = retry.getAsync(() -> {
+                throw new AssertionError("broken");
+            }, scheduler);
+            CompletionException e = assertThrows(CompletionException.class, () -> result.join());
+            assertTrue(e.getCause() instanceof AssertionError);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackoff() {
+        System.out.println("backoff");
+        PossiblyRetry policy = PossiblyRetry.of(10)
+                .withBackoff(Duration.ofNanos(100), Duration.ofNanos(1000))
+                .withJitter(0.0);
+        assertEquals(100, policy.backoff(1));
+        assertEquals(200, policy.backoff(2));
+        assertEquals(1000, policy.backoff(8));
+        policy = policy.withJitter(1.0);
+        for(int i = 0; i < 100; i++) {
+            long backoff = policy.backoff(2);
+            assertTrue(backoff >= 0 && backoff <= 200);
+        }
+        assertThrows(IllegalArgumentException.class, () -> PossiblyRetry.of(0));
+    }
+
+    private int failTwice() throws Exception {
+        int ret = state.getAndIncrement();
+        if(ret < 2) {
+            throw new IOException("transient");
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblySingleFlightTest {
+    public AtomicInteger calls = new AtomicInteger();
+    public CountDownLatch release = new CountDownLatch(1);
+
+    public PossiblySingleFlightTest() {
+    }
+
+    @Test
+    public void testApply() throws Exception {
+        System.out.println("apply");
+        PossiblySingleFlight<String, String> flight = PossiblySingleFlight.of(s -> slow(s));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Possibly<String>>> futures = new ArrayList<>();
+            for(int i = 0; i < 8; i++) {
+                String key = i % 2 == 0 ? "good" : "bad";
+                futures.add(executor.submit(() -> flight.apply(key)));
+            }
+            while(flight.getInFlight() < 2) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for(int i = 0; i < 8; i++) {
+                Possibly<String> p = futures.get(i).get();
+                if(i % 2 == 0) {
+                    assertEquals("good", p.getValue().get());
+                } else {
+                    assertEquals("failed", p.getException().get().getMessage());
+                }
+            }
+            assertSame(futures.get(1).get().getException().get(), futures.get(3).get().getException().get());
+            assertEquals(2, calls.get());
+            assertEquals(0, flight.getInFlight());
+            // nothing is cached once the call is done
+            assertEquals("good", flight.apply("good").getValue().get());
+            assertEquals(3, calls.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testApplyAsync() throws Exception {
+        System.out.println("applyAsync");
+        PossiblySingleFlight<String, String> flight = PossiblySingleFlight.of(s -> slow(s));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<Possibly<String>>> futures = new ArrayList<>();
+            for(int i = 0; i < 100; i++) {
+                futures.add(flight.applyAsync("good", executor));
+            }
+            assertEquals(1, flight.getInFlight());
+            futures.get(0).complete(Possibly.of("mine"));
+            release.countDown();
+            for(int i = 1; i < 100; i++) {
+                assertEquals("good", futures.get(i).get().getValue().get());
+            }
+            assertEquals(1, calls.get());
+            assertEquals("bad", flight.applyAsync(null, executor).get().getValue().get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public String slow(String s) throws Exception {
+        calls.incrementAndGet();
+        release.await();
+        if("bad".equals(s)) {
+            throw new Exception("failed");
+        }
+        return s == null ? "bad" : s;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyStreamTest {
+    public static final String GOOD_VALUE = "good";
+    public static final String BAD_VALUE = "bad";
+
+    public PossiblyStreamTest() {
+    }
+
+    @Test
+    public void testMapChecked() {
+        System.out.println("mapChecked");
+        AtomicInteger calls = new AtomicInteger();
+        PossiblyCollectors.Partition<Integer> partition = PossiblyStream.of(Stream.of(GOOD_VALUE, BAD_VALUE, "other"))
+                .mapChecked(s -> mapWithException(s))
+                .map(s -> {
+                    calls.incrementAndGet();
+                    return s.length();
+                })
+                .collect(PossiblyCollectors.partitioning());
+        assertEquals(Arrays.asList(4, 5), partition.getValues());
+        assertEquals(1, partition.getExceptions().size());
+        assertEquals("bad value", partition.getExceptions().get(0).getMessage());
+        // the failed element skips the later stage
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFilterChecked() {
+        System.out.println("filterChecked");
+        List<Possibly<String>> list = PossiblyStream.of(Stream.of(GOOD_VALUE, BAD_VALUE, "x"))
+                .filterChecked(s -> mapWithException(s).length() > 1)
+                .filter(s -> !s.equals("none"))
+                .stream()
+                .collect(Collectors.toList());
+        assertEquals(2, list.size());
+        assertEquals(GOOD_VALUE, list.get(0).getValue().get());
+        assertTrue(list.get(1).exceptional());
+    }
+
+    @Test
+    public void testPeekAndRecover() {
+        System.out.println("peekAndRecover");
+        List<Exception> seen = new ArrayList<>();
+        List<String> values = PossiblyStream.of(Stream.of(GOOD_VALUE, BAD_VALUE))
+                .mapChecked(s -> mapWithException(s))
+                .peekFailures(seen::add)
+                .recover(e -> e.getMessage())
+                .values()
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(GOOD_VALUE, "bad value"), values);
+        assertEquals(1, seen.size());
+        long failures = PossiblyStream.of(Stream.of(BAD_VALUE))
+                .mapChecked(s -> mapWithException(s))
+                .recover(e -> mapWithException(BAD_VALUE))
+                .failures()
+                .count();
+        assertEquals(1, failures);
+    }
+
+    @Test
+    public void testFrom() {
+        System.out.println("from");
+        List<String> values = new ArrayList<>();
+        List<Exception> exceptions = new ArrayList<>();
+        PossiblyStream.from(Stream.of(Possibly.of(GOOD_VALUE), Possibly.<String>empty(),
+                Possibly.<String>of(new Exception("failed"))))
+                .mapChecked(s -> s.equals(GOOD_VALUE) ? null : s)
+                .forEach(values::add, exceptions::add);
+        assertTrue(values.isEmpty());
+        assertEquals(2, exceptions.size());
+        assertTrue(exceptions.get(0) instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testParallel() {
+        System.out.println("parallel");
+        PossiblyStream<Integer> stream = PossiblyStream.of(IntStream.range(0, 100000).boxed())
+                .parallel()
+                .mapChecked(i -> {
+                    if(i % 10 == 0) {
+                        throw new Exception("tens");
+                    }
+                    return i;
+                });
+        assertTrue(stream.isParallel());
+        PossiblyCollectors.Counts counts = stream.collect(PossiblyCollectors.countingConcurrent());
+        assertEquals(90000, counts.getValues());
+        assertEquals(10000, counts.getExceptions());
+    }
+
+    public String mapWithException(String s) throws Exception {
+        if(BAD_VALUE.equals(s)) {
+            throw new Exception("bad value");
+        }
+        return s;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyStreamsTest {
+
+    public PossiblyStreamsTest() {
+    }
+
+    @Test
+    public void testUntilFailure() {
+        System.out.println("untilFailure");
+        Exception failure = new Exception("fail");
+        List<Possibly<Integer>> result = PossiblyStreams.untilFailure(
+                Stream.of(Possibly.of(1), Possibly.of(2), Possibly.<Integer>of(failure), Possibly.of(4)))
+                .collect(Collectors.toList());
+        assertEquals(3, result.size());
+        assertEquals(2, result.get(1).getValue().get().intValue());
+        assertSame(failure, result.get(2).getException().get());
+        assertEquals(2, PossiblyStreams.untilFailure(Stream.of(Possibly.of(1), Possibly.of(2))).count());
+    }
+
+    @Test
+    public void testUntilFailureParallel() {
+        System.out.println("untilFailureParallel");
+        Exception failure = new Exception("fail");
+        AtomicInteger seen = new AtomicInteger();
+        List<Possibly<Integer>> result = PossiblyStreams.untilFailure(IntStream.range(0, 1000000)
+                .parallel()
+                .mapToObj(i -> i == 10 ? Possibly.<Integer>of(failure) : Possibly.of(i)))
+                .peek(p -> seen.incrementAndGet())
+                .collect(Collectors.toList());
+        // every element before the failure is kept, in order
+        for(int i = 0; i < 10; i++) {
+            assertEquals(i, result.get(i).getValue().get().intValue());
+        }
+        assertSame(failure, result.get(10).getException().get());
+        // the later segments stop soon after the failure
+        assertTrue(result.size() < 1000000, "size " + result.size());
+        assertEquals(result.size(), seen.get());
+    }
+
+    @Test
+    public void testUntilFailureSplitsOrdered() {
+        System.out.println("untilFailureSplitsOrdered");
+        Exception failure = new Exception("fail");
+        List<Possibly<Integer>> list = IntStream.range(0, 100000)
+                .mapToObj(i -> i == 90000 ? Possibly.<Integer>of(failure) : Possibly.of(i))
+                .collect(Collectors.toList());
+        // an ordered source is split into segments
+        assertNotNull(PossiblyStreams.untilFailure(list.parallelStream()).spliterator().trySplit());
+        List<Possibly<Integer>> result = PossiblyStreams.untilFailure(list.parallelStream())
+                .collect(Collectors.toList());
+        for(int i = 0; i < 90000; i++) {
+            assertEquals(i, result.get(i).getValue().get().intValue());
+        }
+        assertSame(failure, result.get(90000).getException().get());
+        assertEquals(90000, PossiblyStreams.untilFailure(list.subList(0, 90000).parallelStream()).count());
+    }
+
+    @Test
+    public void testUntilFailureUnordered() {
+        System.out.println("untilFailureUnordered");
+        Exception failure = new Exception("fail");
+        List<Possibly<Integer>> result = PossiblyStreams.untilFailure(IntStream.range(0, 1000000)
+                .parallel()
+                .unordered()
+                .mapToObj(i -> i == 10 ? Possibly.<Integer>of(failure) : Possibly.of(i)))
+                .filter(Possibly::exceptional)
+                .collect(Collectors.toList());
+        assertEquals(1, result.size());
+        assertSame(failure, result.get(0).getException().get());
+    }
+
+    @Test
+    public void testGenerate() {
+        System.out.println("generate");
+        InputStream in = new ByteArrayInputStream(new byte[] { 1, 2, 3 });
+        assertEquals(6, PossiblyStreams.<Integer>generate(() -> in.read(), b -> b < 0)
+                .mapToInt(p -> p.getValue().get())
+                .sum());
+        AtomicInteger count = new AtomicInteger();
+        assertEquals(5, PossiblyStreams.generate(() -> count.incrementAndGet() > 5 ? null : "x").count());
+    }
+
+    @Test
+    public void testGenerateFailure() {
+        System.out.println("generateFailure");
+        AtomicInteger count = new AtomicInteger();
+        List<Possibly<Integer>> result = PossiblyStreams.<Integer>generate(() -> {
+            if(count.incrementAndGet() > 3) {
+                throw new IOException("broken");
+            }
+            return count.get();
+        }).parallel().collect(Collectors.toList());
+        assertEquals(4, result.size());
+        assertEquals("broken", result.get(3).getException().get().getMessage());
+        assertEquals(4, count.get());
+        assertThrows(IllegalArgumentException.class, () -> PossiblyStreams.generate(null));
+    }
+}
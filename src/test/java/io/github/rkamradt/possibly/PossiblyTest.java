@@ -23,7 +23,12 @@
  */
 package io.github.rkamradt.possibly;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
@@ -142,5 +147,104 @@ public class PossiblyTest {
         instance = Possibly.<String>empty().stream();
         assertEquals(0, instance.count());
     }
+
+    @Test
+    public void testExceptionalIsUnchanged() {
+        System.out.println("exceptionalIsUnchanged");
+        Exception expected = new Exception("test");
+        Possibly<String> instance = Possibly.of(expected);
+        assertSame(instance, instance.map(s -> s.length()));
+        assertSame(instance, instance.flatMap(s -> Optional.of(s)));
+        assertSame(instance, instance.filter(s -> true));
+        assertEquals(expected, instance.map(s -> s.length()).getException().get());
+        assertFalse(instance.getValue().isPresent());
+        assertEquals(0, instance.stream().count());
+    }
+
+    @Test
+    public void testEmptyIsUnchanged() {
+        System.out.println("emptyIsUnchanged");
+        Possibly<String> instance = Possibly.empty();
+        assertSame(instance, instance.map(s -> s.length()));
+        assertSame(instance, instance.flatMap(s -> Optional.of(s)));
+        assertSame(instance, instance.filter(s -> true));
+        assertSame(instance, Possibly.ofNullable(null));
+        assertFalse(instance.getException().isPresent());
+    }
+
+    @Test
+    public void testValue() {
+        System.out.println("value");
+        Possibly<String> instance = Possibly.of("test");
+        assertSame(instance, instance.filter(s -> true));
+        assertTrue(instance.map(s -> null).isEmpty());
+        assertTrue(instance.flatMap(s -> Optional.empty()).isEmpty());
+        assertFalse(instance.getException().isPresent());
+        assertThrows(IllegalArgumentException.class, () -> Possibly.of((String)null));
+        assertThrows(IllegalArgumentException.class, () -> Possibly.of((Exception)null));
+    }
+
+    @Test
+    public void testTraverse() {
+        System.out.println("traverse");
+        List<String> values = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            values.add(Integer.toString(i));
+        }
+        Possibly<List<Integer>> result = Possibly.traverse(values, Integer::parseInt);
+        assertTrue(result.is());
+        List<Integer> list = result.getValue().get();
+        assertEquals(1000, list.size());
+        for(int i = 0; i < 1000; i++) {
+            assertEquals(i, list.get(i).intValue());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> list.add(0));
+        Possibly<List<String>> nullResult = Possibly.traverse(values, s -> s.equals("500") ? null : s);
+        assertTrue(nullResult.exceptional());
+        assertTrue(nullResult.getException().get() instanceof IllegalArgumentException);
+        assertEquals(0, Possibly.traverse(new ArrayList<String>(), Integer::parseInt)
+                .getValue().get().size());
+    }
+
+    @Test
+    public void testTraverseFailsFast() throws Exception {
+        System.out.println("traverseFailsFast");
+        List<Integer> values = new ArrayList<>();
+        for(int i = 0; i < 10000; i++) {
+            values.add(i);
+        }
+        Exception failure = new Exception("fail");
+        AtomicInteger calls = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Possibly<List<Integer>> result = Possibly.traverse(values, i -> {
+                calls.incrementAndGet();
+                if(i == 0) {
+                    throw failure;
+                }
+                Thread.sleep(1);
+                return i;
+            }, pool);
+            assertTrue(result.exceptional());
+            assertSame(failure, result.getException().get());
+            assertTrue(calls.get() < 100);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSequence() {
+        System.out.println("sequence");
+        Exception failure = new Exception("fail");
+        Possibly<List<String>> result = Possibly.sequence(
+                Arrays.asList(Possibly.of("a"), Possibly.of("b")));
+        assertEquals(Arrays.asList("a", "b"), result.getValue().get());
+        result = Possibly.sequence(Arrays.asList(Possibly.of("a"),
+                Possibly.<String>empty(), Possibly.<String>of(failure)));
+        assertSame(failure, result.getException().get());
+        result = Possibly.sequence(Arrays.asList(Possibly.of("a"), Possibly.<String>empty()));
+        assertTrue(result.isEmpty());
+    }
     
 }
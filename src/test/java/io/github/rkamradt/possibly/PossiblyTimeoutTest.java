@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2021 randalkamradt.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.rkamradt.possibly;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author randalkamradt
+ */
+public class PossiblyTimeoutTest {
+    public PossiblyTimeoutTest() {
+    }
+
+    @Test
+    public void testWrapFunction() {
+        System.out.println("wrapFunction");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(50));
+            PossiblyFunction<Long, String> f = PossiblyFunction.of(timeout.wrap(millis -> sleep(millis), executor));
+            assertEquals("slept", f.apply(0L).getValue().get());
+            long start = System.nanoTime();
+            Exception e = f.apply(10000L).getException().get();
+            long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertTrue(e instanceof TimeoutException);
+            assertEquals("timed out after 50ms", e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+            assertTrue(elapsed >= 50 && elapsed < 1000, "elapsed " + elapsed);
+            assertFalse(Thread.currentThread().isInterrupted());
+            assertEquals("failed", f.apply(-1L).getException().get().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWrapSupplier() {
+        System.out.println("wrapSupplier");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(20));
+            PossiblySupplier<String> s = PossiblySupplier.of(timeout.wrap(() -> spin(500), executor));
+            long start = System.nanoTime();
+            // the spin ignores the interrupt, but the caller does not wait for it
+            assertTrue(s.get().getException().get() instanceof TimeoutException);
+            long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            assertTrue(elapsed >= 20 && elapsed < 400, "elapsed " + elapsed);
+            assertFalse(Thread.currentThread().isInterrupted());
+            PossiblySupplier<String> fast = PossiblySupplier.of(timeout.wrap(() -> "fast", executor));
+            for(int i = 0; i < 10000; i++) {
+                assertTrue(fast.get().is());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKeepsInterrupt() {
+        System.out.println("keepsInterrupt");
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(20));
+            PossiblySupplier<String> s = PossiblySupplier.of(timeout.wrap(() -> spin(100), executor));
+            Thread.currentThread().interrupt();
+            assertTrue(s.get().getException().get() instanceof InterruptedException);
+            assertTrue(Thread.interrupted());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWrapAsync() {
+        System.out.println("wrapAsync");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(50));
+            Function<Long, CompletableFuture<Possibly<String>>> f =
+                    timeout.wrapAsync((Long millis) -> sleep(millis), executor);
+            assertEquals("slept", f.apply(0L).join().getValue().get());
+            assertEquals("failed", f.apply(-1L).join().getException().get().getMessage());
+            // more hung calls than workers, the queued ones time out as well
+            List<CompletableFuture<Possibly<String>>> hung = new ArrayList<>();
+            for(int i = 0; i < 100; i++) {
+                hung.add(f.apply(10000L));
+            }
+            Exception first = null;
+            for(CompletableFuture<Possibly<String>> h : hung) {
+                Exception e = h.join().getException().get();
+                assertTrue(e instanceof TimeoutException);
+                assertNotSame(first, e);
+                first = e;
+            }
+            // the interrupted workers are free again
+            assertEquals("slept", f.apply(0L).join().getValue().get());
+            Supplier<CompletableFuture<Possibly<String>>> s = timeout.wrapAsync(() -> "fast", executor);
+            assertEquals("fast", s.get().join().getValue().get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWrapAsyncError() {
+        System.out.println("wrapAsyncError");
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(500));
+            Exception e = timeout.wrapAsync(() -> {
+                        throw new AssertionError("error");
+                    }, executor).get().join().getException().get();
+            assertTrue(e instanceof ExecutionException);
+            assertTrue(e.getCause() instanceof AssertionError);
+            executor.shutdown();
+            assertTrue(timeout.wrapAsync(() -> "rejected", executor).get().join().getException().get()
+                    instanceof RejectedExecutionException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWithin() {
+        System.out.println("within");
+        PossiblyTimeout timeout = PossiblyTimeout.of(Duration.ofMillis(30));
+        List<CompletableFuture<Possibly<String>>> never = new ArrayList<>();
+        for(int i = 0; i < 10000; i++) {
+            never.add(timeout.within(new CompletableFuture<>()));
+        }
+        CompletableFuture<Possibly<String>> done = timeout.within(
+                CompletableFuture.completedFuture(Possibly.of("done")));
+        CompletableFuture<Possibly<String>> failed = new CompletableFuture<>();
+        CompletableFuture<Possibly<String>> failedWithin = timeout.within(failed);
+        failed.completeExceptionally(new IllegalStateException("failed"));
+        assertEquals("done", done.join().getValue().get());
+        assertEquals("failed", failedWithin.join().getException().get().getMessage());
+        for(CompletableFuture<Possibly<String>> f : never) {
+            assertTrue(f.join().getException().get() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testBadTimeout() {
+        System.out.println("badTimeout");
+        assertThrows(IllegalArgumentException.class, () -> PossiblyTimeout.of(Duration.ZERO));
+    }
+
+    public String sleep(long millis) throws Exception {
+        if(millis < 0) {
+            throw new Exception("failed");
+        }
+        Thread.sleep(millis);
+        return "slept";
+    }
+
+    public String spin(long millis) {
+        long end = System.nanoTime() + Duration.ofMillis(millis).toNanos();
+        while(System.nanoTime() < end) {
+            Thread.yield();
+        }
+        return "spun";
+    }
+}